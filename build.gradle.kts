@@ -2,6 +2,7 @@ plugins {
     java
     alias(libs.plugins.spotless)
     alias(libs.plugins.shadow)
+    alias(libs.plugins.jmh)
 }
 
 /* Project Properties */
@@ -38,6 +39,19 @@ dependencies {
     implementation(libs.asm.tree)
     implementation(libs.guava)
     implementation(libs.gson)
+
+    testImplementation(platform(libs.junit.bom))
+    testImplementation(libs.junit.jupiter)
+    testRuntimeOnly(libs.junit.platform.launcher)
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    // Benchmarks run against generated stand-in jars, see cc.irori.hyinit.benchmark.StandInJars
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    profilers.add("gc")
 }
 
 base {
@@ -60,6 +74,10 @@ tasks {
         options.encoding = "UTF-8"
     }
 
+    test {
+        useJUnitPlatform()
+    }
+
     shadowJar {
         archiveClassifier.set("")
         relocate("com.google.gson", "$projectGroup.libs.com.google.gson")
@@ -69,6 +87,25 @@ tasks {
         dependsOn(spotlessApply, shadowJar)
     }
 
+    register<JavaExec>("startupBenchmark") {
+        group = "benchmark"
+        description = "Times Hyinit launching a generated stand-in server, see cc.irori.hyinit.benchmark.StartupBenchmark"
+        dependsOn(shadowJar)
+
+        classpath = sourceSets["jmh"].runtimeClasspath
+        mainClass.set("cc.irori.hyinit.benchmark.StartupBenchmark")
+        javaLauncher.set(project.javaToolchains.launcherFor(java.toolchain))
+
+        val workDir = layout.buildDirectory.dir("startup-benchmark")
+        args(
+            "hyinitJar=${shadowJar.get().archiveFile.get().asFile}",
+            "work=${workDir.get().asFile}",
+            "output=${workDir.get().file("results.json").asFile}",
+        )
+        // e.g. -PstartupBenchmarkArgs="plugins=20 mixins=50 label=abc123"
+        project.findProperty("startupBenchmarkArgs")?.let { args((it as String).split(" ").filter(String::isNotBlank)) }
+    }
+
     jar {
         manifest {
             attributes("Main-Class" to "cc.irori.hyinit.Main")
@@ -0,0 +1,51 @@
+package cc.irori.hyinit;
+
+import cc.irori.hyinit.benchmark.StandInJars;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * {@link ConfigCollector#collectMixinConfigs} over a directory of stand-in earlyplugin jars.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConfigCollectorBenchmark {
+
+    @Param({"10", "100"})
+    public int jars;
+
+    private Path dir;
+    private Path earlyPlugins;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("hyinit-jmh");
+        earlyPlugins = dir.resolve("earlyplugins");
+        for (int i = 0; i < jars; i++) {
+            StandInJars.writeEarlyPluginJar(earlyPlugins.resolve("plugin" + i + ".jar"), "plugin" + i, 2, 10);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        StandInJars.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public ConfigCollector.Result collectMixinConfigs() {
+        return ConfigCollector.collectMixinConfigs(dir, List.of(earlyPlugins));
+    }
+}
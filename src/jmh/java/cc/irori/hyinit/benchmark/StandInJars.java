@@ -0,0 +1,145 @@
+package cc.irori.hyinit.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Generates jars that stand in for the server and earlyplugins in benchmarks, so they run without
+ * the Hytale server or network access.
+ */
+public final class StandInJars {
+
+    private StandInJars() {}
+
+    /**
+     * Writes a jar of {@code classes} filler classes named {@code <packageName>.Filler<i>}, each
+     * with {@code methods} small methods to control the size of the class files.
+     */
+    public static List<String> writeClassJar(Path jar, String packageName, int classes, int methods)
+            throws IOException {
+        List<String> names = new ArrayList<>(classes);
+        try (JarOutputStream out = open(jar)) {
+            for (int i = 0; i < classes; i++) {
+                String name = packageName + ".Filler" + i;
+                put(out, name.replace('.', '/') + ".class", fillerClass(name, methods));
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Writes an earlyplugin jar declaring {@code configs} Mixin configs in its {@code manifest.json},
+     * each listing {@code mixinsPerConfig} mixins.
+     */
+    public static void writeEarlyPluginJar(Path jar, String id, int configs, int mixinsPerConfig)
+            throws IOException {
+        try (JarOutputStream out = open(jar)) {
+            StringBuilder manifest = new StringBuilder("{\n  \"Group\": \"bench\",\n  \"Name\": \"")
+                    .append(id)
+                    .append("\",\n  \"Mixins\": [");
+            for (int c = 0; c < configs; c++) {
+                String config = id + "_" + c + ".mixins.json";
+                manifest.append(c > 0 ? ", " : "").append('"').append(config).append('"');
+                put(out, config, mixinConfig("bench." + id + ".mixin" + c, mixinsPerConfig));
+            }
+            manifest.append("]\n}\n");
+            put(out, "manifest.json", manifest.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    public static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+
+        Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    static JarOutputStream open(Path jar) throws IOException {
+        Files.createDirectories(jar.toAbsolutePath().getParent());
+
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        return new JarOutputStream(Files.newOutputStream(jar), manifest);
+    }
+
+    static void put(JarOutputStream out, String name, byte[] bytes) throws IOException {
+        out.putNextEntry(new JarEntry(name));
+        out.write(bytes);
+        out.closeEntry();
+    }
+
+    static byte[] fillerClass(String name, int methods) {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(
+                Opcodes.V21,
+                Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER,
+                name.replace('.', '/'),
+                null,
+                "java/lang/Object",
+                null);
+
+        MethodVisitor init = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        init.visitCode();
+        init.visitVarInsn(Opcodes.ALOAD, 0);
+        init.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        init.visitInsn(Opcodes.RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+
+        for (int i = 0; i < methods; i++) {
+            MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC, "compute" + i, "(I)I", null, null);
+            method.visitCode();
+            method.visitVarInsn(Opcodes.ILOAD, 1);
+            method.visitLdcInsn(i * 31 + 7);
+            method.visitInsn(Opcodes.IMUL);
+            method.visitLdcInsn("filler-" + name + "-" + i);
+            method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/String", "length", "()I", false);
+            method.visitInsn(Opcodes.IADD);
+            method.visitInsn(Opcodes.IRETURN);
+            method.visitMaxs(0, 0);
+            method.visitEnd();
+        }
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static byte[] mixinConfig(String mixinPackage, int mixins) {
+        StringBuilder json = new StringBuilder("{\n  \"required\": true,\n  \"package\": \"")
+                .append(mixinPackage)
+                .append("\",\n  \"mixins\": [");
+        for (int i = 0; i < mixins; i++) {
+            json.append(i > 0 ? ", " : "").append("\"Mixin").append(i).append('"');
+        }
+        json.append("]\n}\n");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,49 @@
+package cc.irori.hyinit.benchmark;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Loads the filler classes of the stand-in server. The class is copied into the server jar as is,
+ * so it may only depend on the JDK.
+ *
+ * <p>Classes are loaded from {@value #THREADS_PROPERTY} threads, so that the startup benchmark can
+ * measure how loading Mixin targets scales with a real transformer in place.
+ */
+public final class StandInLoading {
+
+    public static final String THREADS_PROPERTY = "hyinit.bench.loaderThreads";
+
+    private StandInLoading() {}
+
+    /** Loads {@code <prefix>0} to {@code <prefix><count - 1>} without initializing them. */
+    public static void loadAll(ClassLoader loader, String prefix, int count) throws Exception {
+        int threads = Math.max(1, Integer.getInteger(THREADS_PROPERTY, 1));
+        AtomicInteger next = new AtomicInteger();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(
+                    () -> {
+                        int index;
+                        while ((index = next.getAndIncrement()) < count && failure.get() == null) {
+                            try {
+                                Class.forName(prefix + index, false, loader);
+                            } catch (Exception e) {
+                                failure.compareAndSet(null, e);
+                            }
+                        }
+                    },
+                    "Stand-in Loader " + t);
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+}
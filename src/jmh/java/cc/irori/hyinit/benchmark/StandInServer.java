@@ -0,0 +1,502 @@
+package cc.irori.hyinit.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarOutputStream;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+/**
+ * Generates a stand-in {@code HytaleServer.jar} and earlyplugins with mixins for the startup
+ * benchmark.
+ *
+ * <p>The server jar contains the classes and injection points Hyinit's own mixins target, plus
+ * filler classes. Its {@code com.hypixel.hytale.Main} prints {@value #MAIN_MARKER} when entered,
+ * loads every class of the jar through {@link StandInLoading}, and prints {@value #DONE_MARKER};
+ * both markers are followed by the wall clock time in milliseconds.
+ */
+public final class StandInServer {
+
+    public static final String MAIN_MARKER = "HYINIT_BENCH_MAIN";
+    public static final String DONE_MARKER = "HYINIT_BENCH_DONE";
+
+    private static final String FILLER_PACKAGE = "com.hypixel.hytale.filler";
+    private static final int FILLER_METHODS = 8;
+
+    private static final String MAIN = "com/hypixel/hytale/Main";
+    private static final String LATE_MAIN = "com/hypixel/hytale/LateMain";
+    private static final String HYTALE_LOGGER = "com/hypixel/hytale/logger/HytaleLogger";
+    private static final String HYTALE_LOG_MANAGER = "com/hypixel/hytale/logger/backend/HytaleLogManager";
+    private static final String CLASS_TRANSFORMER = "com/hypixel/hytale/plugin/early/ClassTransformer";
+    private static final String EARLY_PLUGIN_LOADER = "com/hypixel/hytale/plugin/early/EarlyPluginLoader";
+    private static final String PLUGIN_CLASS_LOADER = "com/hypixel/hytale/server/core/plugin/PluginClassLoader";
+    private static final String PLUGIN_MANAGER = "com/hypixel/hytale/server/core/plugin/PluginManager";
+
+    private static final String STAND_IN_LOADING = Type.getInternalName(StandInLoading.class);
+
+    private static final String CALLBACK_INFO_RETURNABLE =
+            "Lorg/spongepowered/asm/mixin/injection/callback/CallbackInfoReturnable;";
+
+    private StandInServer() {}
+
+    public static String fillerName(int index) {
+        return FILLER_PACKAGE + ".Filler" + index;
+    }
+
+    public static void writeServerJar(Path jar, int fillers) throws IOException {
+        List<String> entryPoints = List.of(
+                LATE_MAIN,
+                HYTALE_LOGGER,
+                HYTALE_LOG_MANAGER,
+                EARLY_PLUGIN_LOADER,
+                PLUGIN_CLASS_LOADER,
+                PLUGIN_MANAGER);
+
+        try (JarOutputStream out = StandInJars.open(jar)) {
+            // Marks the jar as a server jar for ServerJarLocator
+            StandInJars.put(out, "manifests.json", "{}".getBytes(StandardCharsets.UTF_8));
+
+            StandInJars.put(out, MAIN + ".class", mainClass(entryPoints, fillers));
+            StandInJars.put(out, LATE_MAIN + ".class", lateMainClass());
+            StandInJars.put(out, HYTALE_LOGGER + ".class", hytaleLoggerClass());
+            StandInJars.put(out, HYTALE_LOG_MANAGER + ".class", hytaleLogManagerClass());
+            StandInJars.put(out, CLASS_TRANSFORMER + ".class", classTransformerClass());
+            StandInJars.put(out, EARLY_PLUGIN_LOADER + ".class", earlyPluginLoaderClass());
+            StandInJars.put(out, PLUGIN_CLASS_LOADER + ".class", pluginClassLoaderClass());
+            StandInJars.put(out, PLUGIN_MANAGER + ".class", pluginManagerClass());
+            StandInJars.put(out, STAND_IN_LOADING + ".class", standInLoadingClass());
+
+            for (int i = 0; i < fillers; i++) {
+                String name = fillerName(i);
+                byte[] bytes = StandInJars.fillerClass(name, FILLER_METHODS);
+                StandInJars.put(out, name.replace('.', '/') + ".class", bytes);
+            }
+        }
+    }
+
+    /**
+     * Writes an earlyplugin with {@code configs} Mixin configs of {@code mixinsPerConfig} mixins
+     * each. Every mixin injects at the head of a filler class method, spreading the plugins'
+     * mixins over the filler classes.
+     */
+    public static void writeMixinPluginJar(
+            Path jar, int plugin, int configs, int mixinsPerConfig, int fillers, int firstTarget) throws IOException {
+        String id = "plugin" + plugin;
+
+        try (JarOutputStream out = StandInJars.open(jar)) {
+            List<String> configNames = new ArrayList<>();
+            int target = firstTarget;
+
+            for (int c = 0; c < configs; c++) {
+                String mixinPackage = "bench." + id + ".mixin" + c;
+                StringBuilder json = new StringBuilder()
+                        .append("{\n  \"minVersion\": \"0.8\",\n  \"compatibilityLevel\": \"JAVA_21\",\n")
+                        .append("  \"package\": \"")
+                        .append(mixinPackage)
+                        .append("\",\n  \"injectors\": {\"defaultRequire\": 1},\n  \"mixins\": [");
+
+                for (int m = 0; m < mixinsPerConfig; m++) {
+                    String simpleName = "Mixin" + m;
+                    String name = mixinPackage + "." + simpleName;
+                    StandInJars.put(
+                            out,
+                            name.replace('.', '/') + ".class",
+                            mixinClass(name, fillerName(target++ % fillers)));
+                    json.append(m > 0 ? ", " : "").append('"').append(simpleName).append('"');
+                }
+
+                json.append("]\n}\n");
+                String configName = id + "_" + c + ".mixins.json";
+                StandInJars.put(out, configName, json.toString().getBytes(StandardCharsets.UTF_8));
+                configNames.add(configName);
+            }
+
+            StringBuilder manifest = new StringBuilder("{\n  \"Group\": \"bench\",\n  \"Name\": \"")
+                    .append(id)
+                    .append("\",\n  \"Mixins\": [");
+            for (int i = 0; i < configNames.size(); i++) {
+                manifest.append(i > 0 ? ", " : "").append('"').append(configNames.get(i)).append('"');
+            }
+            manifest.append("]\n}\n");
+            StandInJars.put(out, "manifest.json", manifest.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static byte[] mainClass(List<String> entryPoints, int fillers) {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
+        writer.visit(Opcodes.V21, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, MAIN, null, "java/lang/Object", null);
+
+        MethodVisitor main = writer.visitMethod(
+                Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "main", "([Ljava/lang/String;)V", null, new String[] {
+                    "java/lang/Exception"
+                });
+        main.visitCode();
+        printMarker(main, MAIN_MARKER);
+
+        // ClassLoader loader = Main.class.getClassLoader();
+        main.visitLdcInsn(Type.getObjectType(MAIN));
+        main.visitMethodInsn(
+                Opcodes.INVOKEVIRTUAL, "java/lang/Class", "getClassLoader", "()Ljava/lang/ClassLoader;", false);
+        main.visitVarInsn(Opcodes.ASTORE, 1);
+
+        for (String entryPoint : entryPoints) {
+            main.visitLdcInsn(entryPoint.replace('/', '.'));
+            loadClass(main);
+        }
+
+        // StandInLoading.loadAll(loader, FILLER_PACKAGE + ".Filler", fillers);
+        main.visitVarInsn(Opcodes.ALOAD, 1);
+        main.visitLdcInsn(FILLER_PACKAGE + ".Filler");
+        main.visitLdcInsn(fillers);
+        main.visitMethodInsn(
+                Opcodes.INVOKESTATIC,
+                STAND_IN_LOADING,
+                "loadAll",
+                "(Ljava/lang/ClassLoader;Ljava/lang/String;I)V",
+                false);
+
+        printMarker(main, DONE_MARKER);
+        main.visitInsn(Opcodes.RETURN);
+        main.visitMaxs(0, 0);
+        main.visitEnd();
+
+        // Target of MixinMain
+        MethodVisitor launch = writer.visitMethod(
+                Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC,
+                "launchWithTransformingClassLoader",
+                "([Ljava/lang/String;)V",
+                null,
+                null);
+        launch.visitCode();
+        launch.visitLdcInsn(Type.getObjectType(MAIN));
+        launch.visitMethodInsn(
+                Opcodes.INVOKEVIRTUAL, "java/lang/Class", "getClassLoader", "()Ljava/lang/ClassLoader;", false);
+        launch.visitMethodInsn(
+                Opcodes.INVOKEVIRTUAL, "java/lang/ClassLoader", "getParent", "()Ljava/lang/ClassLoader;", false);
+        launch.visitInsn(Opcodes.POP);
+        launch.visitInsn(Opcodes.RETURN);
+        launch.visitMaxs(0, 0);
+        launch.visitEnd();
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static byte[] standInLoadingClass() throws IOException {
+        try (InputStream in = StandInLoading.class.getResourceAsStream("StandInLoading.class")) {
+            if (in == null) {
+                throw new IOException("Class file of StandInLoading not found");
+            }
+            return in.readAllBytes();
+        }
+    }
+
+    /** Loads the class named on top of the stack with the loader in local 1, without initializing it. */
+    private static void loadClass(MethodVisitor method) {
+        method.visitInsn(Opcodes.ICONST_0);
+        method.visitVarInsn(Opcodes.ALOAD, 1);
+        method.visitMethodInsn(
+                Opcodes.INVOKESTATIC,
+                "java/lang/Class",
+                "forName",
+                "(Ljava/lang/String;ZLjava/lang/ClassLoader;)Ljava/lang/Class;",
+                false);
+        method.visitInsn(Opcodes.POP);
+    }
+
+    private static void printMarker(MethodVisitor method, String marker) {
+        method.visitFieldInsn(Opcodes.GETSTATIC, "java/lang/System", "out", "Ljava/io/PrintStream;");
+        method.visitInsn(Opcodes.DUP);
+        method.visitLdcInsn(marker + " ");
+        method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/io/PrintStream", "print", "(Ljava/lang/String;)V", false);
+        method.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/System", "currentTimeMillis", "()J", false);
+        method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/io/PrintStream", "println", "(J)V", false);
+    }
+
+    private static byte[] lateMainClass() {
+        ClassWriter writer = classWriter(LATE_MAIN, "java/lang/Object");
+
+        // Target of MixinLateMain
+        MethodVisitor lateMain = writer.visitMethod(
+                Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "lateMain", "([Ljava/lang/String;)V", null, null);
+        lateMain.visitCode();
+        lateMain.visitMethodInsn(Opcodes.INVOKESTATIC, HYTALE_LOGGER, "init", "()V", false);
+        lateMain.visitInsn(Opcodes.RETURN);
+        lateMain.visitMaxs(0, 0);
+        lateMain.visitEnd();
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static byte[] hytaleLoggerClass() {
+        ClassWriter writer = classWriter(HYTALE_LOGGER, "java/lang/Object");
+
+        // Target of MixinHytaleLogger
+        MethodVisitor clinit = writer.visitMethod(Opcodes.ACC_STATIC, "<clinit>", "()V", null, null);
+        clinit.visitCode();
+        clinit.visitLdcInsn(HYTALE_LOG_MANAGER.replace('/', '.'));
+        clinit.visitLdcInsn(HYTALE_LOG_MANAGER.replace('/', '.'));
+        clinit.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/String", "equals", "(Ljava/lang/Object;)Z", false);
+        clinit.visitInsn(Opcodes.POP);
+        clinit.visitInsn(Opcodes.RETURN);
+        clinit.visitMaxs(0, 0);
+        clinit.visitEnd();
+
+        MethodVisitor init = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "init", "()V", null, null);
+        init.visitCode();
+        init.visitInsn(Opcodes.RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static byte[] hytaleLogManagerClass() {
+        ClassWriter writer = classWriter(HYTALE_LOG_MANAGER, "java/lang/Object");
+
+        MethodVisitor reset = writer.visitMethod(Opcodes.ACC_PUBLIC, "reset", "()V", null, null);
+        reset.visitCode();
+        reset.visitInsn(Opcodes.RETURN);
+        reset.visitMaxs(0, 0);
+        reset.visitEnd();
+
+        MethodVisitor getLogger = writer.visitMethod(
+                Opcodes.ACC_PUBLIC, "getLogger", "(Ljava/lang/String;)Ljava/util/logging/Logger;", null, null);
+        getLogger.visitCode();
+        getLogger.visitMethodInsn(
+                Opcodes.INVOKESTATIC,
+                "java/util/logging/Logger",
+                "getAnonymousLogger",
+                "()Ljava/util/logging/Logger;",
+                false);
+        getLogger.visitInsn(Opcodes.ARETURN);
+        getLogger.visitMaxs(0, 0);
+        getLogger.visitEnd();
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static byte[] classTransformerClass() {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(
+                Opcodes.V21,
+                Opcodes.ACC_PUBLIC | Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT,
+                CLASS_TRANSFORMER,
+                null,
+                "java/lang/Object",
+                null);
+        writer.visitMethod(
+                        Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT,
+                        "transform",
+                        "(Ljava/lang/String;Ljava/lang/String;[B)[B",
+                        null,
+                        null)
+                .visitEnd();
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static byte[] earlyPluginLoaderClass() {
+        ClassWriter writer = classWriter(EARLY_PLUGIN_LOADER, "java/lang/Object");
+        writer.visitField(
+                        Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL,
+                        "transformers",
+                        "Ljava/util/List;",
+                        null,
+                        null)
+                .visitEnd();
+
+        MethodVisitor clinit = writer.visitMethod(Opcodes.ACC_STATIC, "<clinit>", "()V", null, null);
+        clinit.visitCode();
+        clinit.visitTypeInsn(Opcodes.NEW, "java/util/ArrayList");
+        clinit.visitInsn(Opcodes.DUP);
+        clinit.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/util/ArrayList", "<init>", "()V", false);
+        clinit.visitFieldInsn(Opcodes.PUTSTATIC, EARLY_PLUGIN_LOADER, "transformers", "Ljava/util/List;");
+        clinit.visitInsn(Opcodes.RETURN);
+        clinit.visitMaxs(0, 0);
+        clinit.visitEnd();
+
+        // Target of MixinEarlyPluginLoader
+        MethodVisitor load = writer.visitMethod(
+                Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "loadEarlyPlugins", "([Ljava/lang/String;)V", null, null);
+        load.visitCode();
+        load.visitFieldInsn(Opcodes.GETSTATIC, EARLY_PLUGIN_LOADER, "transformers", "Ljava/util/List;");
+        load.visitInsn(Opcodes.ACONST_NULL);
+        load.visitMethodInsn(Opcodes.INVOKEINTERFACE, "java/util/List", "sort", "(Ljava/util/Comparator;)V", true);
+        load.visitInsn(Opcodes.RETURN);
+        load.visitMaxs(0, 0);
+        load.visitEnd();
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static byte[] pluginClassLoaderClass() {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(
+                Opcodes.V21,
+                Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER,
+                PLUGIN_CLASS_LOADER,
+                null,
+                "java/net/URLClassLoader",
+                null);
+
+        MethodVisitor init = writer.visitMethod(
+                Opcodes.ACC_PUBLIC, "<init>", "([Ljava/net/URL;Ljava/lang/ClassLoader;)V", null, null);
+        init.visitCode();
+        init.visitVarInsn(Opcodes.ALOAD, 0);
+        init.visitVarInsn(Opcodes.ALOAD, 1);
+        init.visitVarInsn(Opcodes.ALOAD, 2);
+        init.visitMethodInsn(
+                Opcodes.INVOKESPECIAL,
+                "java/net/URLClassLoader",
+                "<init>",
+                "([Ljava/net/URL;Ljava/lang/ClassLoader;)V",
+                false);
+        init.visitInsn(Opcodes.RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+
+        // Target of MixinPluginClassLoader, which captures the first Class local at the first return
+        MethodVisitor loadClass0 = writer.visitMethod(
+                Opcodes.ACC_PROTECTED, "loadClass0", "(Ljava/lang/String;Z)Ljava/lang/Class;", null, new String[] {
+                    "java/lang/ClassNotFoundException"
+                });
+        Label start = new Label();
+        Label end = new Label();
+        loadClass0.visitCode();
+        loadClass0.visitVarInsn(Opcodes.ALOAD, 0);
+        loadClass0.visitVarInsn(Opcodes.ALOAD, 1);
+        loadClass0.visitMethodInsn(
+                Opcodes.INVOKEVIRTUAL,
+                PLUGIN_CLASS_LOADER,
+                "findLoadedClass",
+                "(Ljava/lang/String;)Ljava/lang/Class;",
+                false);
+        loadClass0.visitVarInsn(Opcodes.ASTORE, 3);
+        loadClass0.visitLabel(start);
+        loadClass0.visitVarInsn(Opcodes.ALOAD, 3);
+        loadClass0.visitInsn(Opcodes.ARETURN);
+        loadClass0.visitLabel(end);
+        loadClass0.visitLocalVariable("this", "L" + PLUGIN_CLASS_LOADER + ";", null, start, end, 0);
+        loadClass0.visitLocalVariable("name", "Ljava/lang/String;", null, start, end, 1);
+        loadClass0.visitLocalVariable("useBridge", "Z", null, start, end, 2);
+        loadClass0.visitLocalVariable("loadClass", "Ljava/lang/Class;", null, start, end, 3);
+        loadClass0.visitMaxs(0, 0);
+        loadClass0.visitEnd();
+
+        parentDelegatingMethod(writer, "getResource", "Ljava/net/URL;");
+        parentDelegatingMethod(writer, "getResources", "Ljava/util/Enumeration;");
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    /** Writes {@code public T name(String name) { return getParent().name(name); }}. */
+    private static void parentDelegatingMethod(ClassWriter writer, String name, String returnType) {
+        String descriptor = "(Ljava/lang/String;)" + returnType;
+
+        MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC, name, descriptor, null, new String[] {
+            "java/io/IOException"
+        });
+        method.visitCode();
+        method.visitVarInsn(Opcodes.ALOAD, 0);
+        method.visitMethodInsn(
+                Opcodes.INVOKEVIRTUAL, "java/lang/ClassLoader", "getParent", "()Ljava/lang/ClassLoader;", false);
+        method.visitVarInsn(Opcodes.ALOAD, 1);
+        method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/ClassLoader", name, descriptor, false);
+        method.visitInsn(Opcodes.ARETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+    }
+
+    private static byte[] pluginManagerClass() {
+        ClassWriter writer = classWriter(PLUGIN_MANAGER, "java/lang/Object");
+
+        // Target of MixinPluginManager
+        MethodVisitor load = writer.visitMethod(
+                Opcodes.ACC_PUBLIC, "loadPluginsInClasspath", "()V", null, new String[] {"java/io/IOException"});
+        load.visitCode();
+        load.visitVarInsn(Opcodes.ALOAD, 0);
+        load.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/Object", "getClass", "()Ljava/lang/Class;", false);
+        load.visitMethodInsn(
+                Opcodes.INVOKEVIRTUAL, "java/lang/Class", "getClassLoader", "()Ljava/lang/ClassLoader;", false);
+        load.visitLdcInsn("manifest.json");
+        load.visitMethodInsn(
+                Opcodes.INVOKEVIRTUAL,
+                "java/lang/ClassLoader",
+                "getResources",
+                "(Ljava/lang/String;)Ljava/util/Enumeration;",
+                false);
+        load.visitInsn(Opcodes.POP);
+        load.visitInsn(Opcodes.RETURN);
+        load.visitMaxs(0, 0);
+        load.visitEnd();
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    /**
+     * Writes a mixin injecting an empty handler at the head of {@code compute0} of the target
+     * filler class.
+     */
+    private static byte[] mixinClass(String name, String target) {
+        ClassWriter writer = classWriter(name.replace('.', '/'), "java/lang/Object");
+
+        AnnotationVisitor mixin = writer.visitAnnotation("Lorg/spongepowered/asm/mixin/Mixin;", false);
+        AnnotationVisitor targets = mixin.visitArray("value");
+        targets.visit(null, Type.getObjectType(target.replace('.', '/')));
+        targets.visitEnd();
+        mixin.visitEnd();
+
+        MethodVisitor handler = writer.visitMethod(
+                Opcodes.ACC_PRIVATE, "bench$onCompute", "(I" + CALLBACK_INFO_RETURNABLE + ")V", null, null);
+        AnnotationVisitor inject =
+                handler.visitAnnotation("Lorg/spongepowered/asm/mixin/injection/Inject;", true);
+        AnnotationVisitor methods = inject.visitArray("method");
+        methods.visit(null, "compute0");
+        methods.visitEnd();
+        AnnotationVisitor at = inject.visitArray("at");
+        AnnotationVisitor head = at.visitAnnotation(null, "Lorg/spongepowered/asm/mixin/injection/At;");
+        head.visit("value", "HEAD");
+        head.visitEnd();
+        at.visitEnd();
+        inject.visitEnd();
+
+        handler.visitCode();
+        handler.visitInsn(Opcodes.RETURN);
+        handler.visitMaxs(0, 0);
+        handler.visitEnd();
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    /** Returns a writer for a public class with a public no-argument constructor. */
+    private static ClassWriter classWriter(String internalName, String superName) {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V21, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, internalName, null, superName, null);
+
+        MethodVisitor init = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        init.visitCode();
+        init.visitVarInsn(Opcodes.ALOAD, 0);
+        init.visitMethodInsn(Opcodes.INVOKESPECIAL, superName, "<init>", "()V", false);
+        init.visitInsn(Opcodes.RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+
+        return writer;
+    }
+}
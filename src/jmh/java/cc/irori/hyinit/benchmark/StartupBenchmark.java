@@ -0,0 +1,217 @@
+package cc.irori.hyinit.benchmark;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Times the launch path of Hyinit end to end against a generated stand-in server and earlyplugins.
+ *
+ * <p>Arguments are given as {@code key=value}:
+ *
+ * <ul>
+ *   <li>{@code hyinitJar} (required): the shadow jar to launch;
+ *   <li>{@code work}: directory the stand-in jars are generated in;
+ *   <li>{@code output}: JSON file the results are written to;
+ *   <li>{@code fillers}, {@code plugins}, {@code configs}, {@code mixins}: size of the stand-in
+ *       server and of each earlyplugin;
+ *   <li>{@code loaderThreads}: number of threads the stand-in server loads its classes from, to
+ *       measure how loading Mixin targets scales with the transformer in place;
+ *   <li>{@code warmups}, {@code runs}: number of discarded and measured launches;
+ *   <li>{@code jvmArgs}: space-separated options for the launched JVMs;
+ *   <li>{@code label}: free-form label stored with the results, e.g. a commit hash.
+ * </ul>
+ *
+ * <p>Each launch records the wall clock time from starting the JVM to entering the server's main
+ * method, to the server having loaded every class, and to the JVM exiting.
+ */
+public final class StartupBenchmark {
+
+    private static final long TIMEOUT_MINUTES = 10;
+
+    private StartupBenchmark() {}
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+
+        Path hyinitJar = Path.of(required(options, "hyinitJar")).toAbsolutePath();
+        Path work = Path.of(options.getOrDefault("work", "build/startup-benchmark")).toAbsolutePath();
+        Path output = Path.of(options.getOrDefault("output", work.resolve("results.json").toString()));
+        int fillers = Integer.parseInt(options.getOrDefault("fillers", "5000"));
+        int plugins = Integer.parseInt(options.getOrDefault("plugins", "10"));
+        int configs = Integer.parseInt(options.getOrDefault("configs", "1"));
+        int mixins = Integer.parseInt(options.getOrDefault("mixins", "20"));
+        int loaderThreads = Integer.parseInt(options.getOrDefault("loaderThreads", "1"));
+        int warmups = Integer.parseInt(options.getOrDefault("warmups", "1"));
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        List<String> jvmArgs = new ArrayList<>(splitArgs(options.getOrDefault("jvmArgs", "")));
+        jvmArgs.add("-D" + StandInLoading.THREADS_PROPERTY + "=" + loaderThreads);
+
+        Path serverDir = work.resolve("server");
+        StandInJars.deleteRecursively(serverDir);
+        StandInServer.writeServerJar(serverDir.resolve("HytaleServer.jar"), fillers);
+        for (int p = 0; p < plugins; p++) {
+            StandInServer.writeMixinPluginJar(
+                    serverDir.resolve("earlyplugins").resolve("plugin" + p + ".jar"),
+                    p,
+                    configs,
+                    mixins,
+                    fillers,
+                    p * configs * mixins);
+        }
+
+        System.out.printf(
+                "Stand-in server with %d filler class(es) loaded from %d thread(s), %d earlyplugin(s) with %d"
+                        + " mixin(s) each%n",
+                fillers, loaderThreads, plugins, configs * mixins);
+
+        for (int i = 0; i < warmups; i++) {
+            Run run = launch(hyinitJar, serverDir, jvmArgs);
+            System.out.printf("Warmup %d: %s%n", i + 1, run);
+        }
+
+        List<Run> results = new ArrayList<>();
+        for (int i = 0; i < runs; i++) {
+            Run run = launch(hyinitJar, serverDir, jvmArgs);
+            System.out.printf("Run %d: %s%n", i + 1, run);
+            results.add(run);
+        }
+
+        JsonObject json = new JsonObject();
+        json.addProperty("label", options.getOrDefault("label", ""));
+        json.addProperty("timestamp", Instant.now().toString());
+        json.addProperty("java", Runtime.version().toString());
+        json.addProperty("hyinitJar", hyinitJar.toString());
+
+        JsonObject setup = new JsonObject();
+        setup.addProperty("fillers", fillers);
+        setup.addProperty("plugins", plugins);
+        setup.addProperty("configs", configs);
+        setup.addProperty("mixins", mixins);
+        setup.addProperty("loaderThreads", loaderThreads);
+        setup.addProperty("jvmArgs", String.join(" ", jvmArgs));
+        json.add("setup", setup);
+
+        JsonArray runArray = new JsonArray();
+        for (Run run : results) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("launchToMainMillis", run.launchToMain);
+            entry.addProperty("launchToLoadedMillis", run.launchToLoaded);
+            entry.addProperty("launchToExitMillis", run.launchToExit);
+            runArray.add(entry);
+        }
+        json.add("runs", runArray);
+
+        JsonObject median = new JsonObject();
+        median.addProperty("launchToMainMillis", median(results, Run::launchToMain));
+        median.addProperty("launchToLoadedMillis", median(results, Run::launchToLoaded));
+        median.addProperty("launchToExitMillis", median(results, Run::launchToExit));
+        json.add("median", median);
+
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        Files.writeString(output, new GsonBuilder().setPrettyPrinting().create().toJson(json));
+        System.out.println("Wrote results to " + output);
+    }
+
+    private static Run launch(Path hyinitJar, Path serverDir, List<String> jvmArgs)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.addAll(jvmArgs);
+        command.add("-jar");
+        command.add(hyinitJar.toString());
+        command.add("--server-jar");
+        command.add(serverDir.resolve("HytaleServer.jar").toString());
+
+        List<String> log = new ArrayList<>();
+        long mainMillis = -1;
+        long loadedMillis = -1;
+
+        long launchMillis = System.currentTimeMillis();
+        Process process = new ProcessBuilder(command)
+                .directory(serverDir.toFile())
+                .redirectErrorStream(true)
+                .start();
+
+        try (BufferedReader reader =
+                new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                log.add(line);
+                if (line.startsWith(StandInServer.MAIN_MARKER + " ")) {
+                    mainMillis = Long.parseLong(line.substring(StandInServer.MAIN_MARKER.length() + 1));
+                } else if (line.startsWith(StandInServer.DONE_MARKER + " ")) {
+                    loadedMillis = Long.parseLong(line.substring(StandInServer.DONE_MARKER.length() + 1));
+                }
+            }
+        }
+
+        if (!process.waitFor(TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+            process.destroyForcibly();
+            throw new IllegalStateException("Launch did not finish within " + TIMEOUT_MINUTES + " minutes");
+        }
+        long exitMillis = System.currentTimeMillis();
+
+        if (process.exitValue() != 0 || mainMillis < 0 || loadedMillis < 0) {
+            log.forEach(System.err::println);
+            throw new IllegalStateException("Launch failed with exit code " + process.exitValue());
+        }
+
+        return new Run(mainMillis - launchMillis, loadedMillis - launchMillis, exitMillis - launchMillis);
+    }
+
+    private static long median(List<Run> runs, ToLongFunction<Run> metric) {
+        long[] values = runs.stream().mapToLong(metric).sorted().toArray();
+        return values.length == 0 ? 0 : values[values.length / 2];
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    private static String required(Map<String, String> options, String key) {
+        String value = options.get(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing required option " + key);
+        }
+        return value;
+    }
+
+    private static List<String> splitArgs(String args) {
+        return Arrays.stream(args.trim().split("\\s+"))
+                .filter(arg -> !arg.isEmpty())
+                .toList();
+    }
+
+    private record Run(long launchToMain, long launchToLoaded, long launchToExit) {
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "main after %d ms, classes loaded after %d ms, exited after %d ms",
+                    launchToMain, launchToLoaded, launchToExit);
+        }
+    }
+}
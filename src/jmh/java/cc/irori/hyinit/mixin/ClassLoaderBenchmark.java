@@ -0,0 +1,114 @@
+package cc.irori.hyinit.mixin;
+
+import cc.irori.hyinit.benchmark.StandInJars;
+import cc.irori.hyinit.shared.SourceMetadata;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Hot paths of {@link HyinitClassLoader} without a Mixin transformer, so classes are defined as
+ * they are on disk. Only reading class files depends on the size of the jar, the other paths run
+ * once against a loader with both jars.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ClassLoaderBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Loader {
+
+        private Path dir;
+        private HyinitClassLoader classLoader;
+        private List<String> small;
+        private List<String> large;
+        private String loadedClass;
+
+        @Setup
+        public void setup() throws Exception {
+            dir = Files.createTempDirectory("hyinit-jmh");
+
+            small = StandInJars.writeClassJar(dir.resolve("small.jar"), "bench.small", 100, 2);
+            large = StandInJars.writeClassJar(dir.resolve("large.jar"), "bench.large", 5000, 40);
+
+            classLoader = new HyinitClassLoader();
+            classLoader.addCodeSource(dir.resolve("small.jar"), new SourceMetadata(false));
+            classLoader.addCodeSource(dir.resolve("large.jar"), new SourceMetadata(true));
+
+            loadedClass = small.getFirst();
+            classLoader.loadClass(loadedClass);
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            StandInJars.deleteRecursively(dir);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Classes {
+
+        @Param({"small", "large"})
+        public String jar;
+
+        private List<String> classes;
+        private int next;
+
+        @Setup
+        public void setup(Loader loader) {
+            classes = jar.equals("small") ? loader.small : loader.large;
+        }
+    }
+
+    @Benchmark
+    public Class<?> loadClassHit(Loader loader) throws ClassNotFoundException {
+        return loader.classLoader.loadClass(loader.loadedClass);
+    }
+
+    @Benchmark
+    public Object loadClassMiss(Loader loader) {
+        try {
+            return loader.classLoader.loadClass("bench.missing.Absent");
+        } catch (ClassNotFoundException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public byte[] getRawClassBytes(Loader loader, Classes classes) throws IOException {
+        String name = classes.classes.get(classes.next++ % classes.classes.size());
+        return loader.classLoader.getRawClassBytes(name);
+    }
+
+    @Benchmark
+    public void canTransformClass(Loader loader, Blackhole blackhole) {
+        HyinitClassLoader classLoader = loader.classLoader;
+        blackhole.consume(classLoader.canTransformClass(loader.loadedClass));
+        blackhole.consume(classLoader.canTransformClass("com.google.gson.Gson"));
+        blackhole.consume(classLoader.canTransformClass("java.lang.String"));
+        blackhole.consume(classLoader.canTransformClass("org.spongepowered.asm.mixin.Mixins"));
+    }
+
+    @Benchmark
+    public void getResources(Loader loader, Blackhole blackhole) throws IOException {
+        // Present in both the code sources and the class path of the benchmark itself
+        Enumeration<URL> resources = loader.classLoader.getResources("META-INF/MANIFEST.MF");
+        while (resources.hasMoreElements()) {
+            blackhole.consume(resources.nextElement());
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package cc.irori.hyinit.mixin;
+
+import cc.irori.hyinit.benchmark.StandInJars;
+import cc.irori.hyinit.shared.SourceMetadata;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * {@link HyinitMixinService#getClassNode} as used by Mixin for hierarchy and mixin lookups.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MixinServiceBenchmark {
+
+    @Param({"0", "" + ClassReader.SKIP_CODE, "" + (ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES)})
+    public int readerFlags;
+
+    private Path dir;
+    private HyinitMixinService service;
+    private List<String> classes;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("hyinit-jmh");
+        Path jar = dir.resolve("classes.jar");
+        classes = StandInJars.writeClassJar(jar, "bench.service", 1000, 20);
+
+        HyinitClassLoader classLoader = new HyinitClassLoader();
+        classLoader.addCodeSource(jar, new SourceMetadata(true));
+        HyinitMixinService.setGameClassLoader(classLoader);
+        service = new HyinitMixinService();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        StandInJars.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public ClassNode getClassNode() throws Exception {
+        String name = classes.get(next++ % classes.size());
+        return service.getClassNode(name.replace('.', '/'), true, readerFlags);
+    }
+}
@@ -0,0 +1,83 @@
+package cc.irori.hyinit.mixin;
+
+import cc.irori.hyinit.benchmark.StandInJars;
+import cc.irori.hyinit.shared.SourceMetadata;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Loads every class of a large stand-in jar into a fresh loader from several threads, to check
+ * how class loading scales with the number of loading threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParallelLoadBenchmark {
+
+    @Param({"1", "4", "8"})
+    public int threads;
+
+    private Path dir;
+    private Path jar;
+    private List<String> classes;
+    private ExecutorService executor;
+    private HyinitClassLoader classLoader;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("hyinit-jmh");
+        jar = dir.resolve("classes.jar");
+        classes = StandInJars.writeClassJar(jar, "bench.parallel", 5000, 20);
+        executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @Setup(Level.Invocation)
+    public void createClassLoader() {
+        classLoader = new HyinitClassLoader();
+        classLoader.addCodeSource(jar, new SourceMetadata(true));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        StandInJars.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public int loadAll() throws Exception {
+        AtomicInteger next = new AtomicInteger();
+        Future<?>[] futures = new Future<?>[threads];
+
+        for (int t = 0; t < threads; t++) {
+            futures[t] = executor.submit(() -> {
+                int index;
+                while ((index = next.getAndIncrement()) < classes.size()) {
+                    classLoader.loadClass(classes.get(index));
+                }
+                return null;
+            });
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        return next.get();
+    }
+}
@@ -0,0 +1,93 @@
+package cc.irori.hyinit.util;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.logging.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Compares the per-call cost of {@link Method#invoke} with the accessors of {@link
+ * ReflectionUtil#getAccessor}, calling {@code getLogger} of a stand-in log manager like {@code
+ * HyinitLogManager} calls Hytale's. The isolated variants load the log manager in its own class
+ * loader, as Hytale's is at runtime.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ReflectionUtilBenchmark {
+
+    private StandInLogManager manager;
+    private Method method;
+    private BiFunction<Object, String, Logger> accessor;
+
+    private URLClassLoader isolatedLoader;
+    private Object isolatedManager;
+    private Method isolatedMethod;
+    private BiFunction<Object, String, Logger> isolatedAccessor;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() throws Exception {
+        manager = new StandInLogManager();
+        method = StandInLogManager.class.getDeclaredMethod("getLogger", String.class);
+        accessor = ReflectionUtil.getAccessor(method, BiFunction.class);
+
+        URL codeSource =
+                StandInLogManager.class.getProtectionDomain().getCodeSource().getLocation();
+        isolatedLoader = new URLClassLoader(new URL[] {codeSource}, ClassLoader.getPlatformClassLoader());
+        Class<?> isolatedClass = isolatedLoader.loadClass(StandInLogManager.class.getName());
+        isolatedManager = isolatedClass.getConstructor().newInstance();
+        isolatedMethod = isolatedClass.getDeclaredMethod("getLogger", String.class);
+        isolatedAccessor = ReflectionUtil.getAccessor(isolatedMethod, BiFunction.class);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        isolatedLoader.close();
+    }
+
+    @Benchmark
+    public Logger direct() {
+        return manager.getLogger("hyinit");
+    }
+
+    @Benchmark
+    public Logger methodInvoke() {
+        return (Logger) ReflectionUtil.invokeMethod(method, manager, "hyinit");
+    }
+
+    @Benchmark
+    public Logger accessor() {
+        return accessor.apply(manager, "hyinit");
+    }
+
+    @Benchmark
+    public Logger isolatedMethodInvoke() {
+        return (Logger) ReflectionUtil.invokeMethod(isolatedMethod, isolatedManager, "hyinit");
+    }
+
+    @Benchmark
+    public Logger isolatedAccessor() {
+        return isolatedAccessor.apply(isolatedManager, "hyinit");
+    }
+
+    public static final class StandInLogManager {
+
+        private final Logger logger = Logger.getAnonymousLogger();
+
+        public Logger getLogger(String name) {
+            return logger;
+        }
+    }
+}
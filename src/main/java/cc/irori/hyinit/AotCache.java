@@ -0,0 +1,236 @@
+package cc.irori.hyinit;
+
+import cc.irori.hyinit.mixin.HyinitClassLoader;
+import cc.irori.hyinit.mixin.HyinitClassLoaderMXBean;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Training and use of a JDK ahead-of-time cache for the Hyinit launch path.
+ *
+ * <p>{@value #TRAIN_ARG} relaunches the JVM with {@code -XX:AOTCacheOutput}, boots the server,
+ * and exits once class loading has been idle for a while, at which point the JVM writes the cache.
+ * The JVM only archives classes of its built-in loaders, which covers the JDK, Hyinit itself and
+ * its Mixin/ASM stack; the server and earlyplugin classes defined by {@link HyinitClassLoader}
+ * are loaded as before.
+ *
+ * <p>JVM options cannot be changed after launch, so a trained cache is used either by passing
+ * {@code -XX:AOTCache} directly or by setting {@value #AUTO_USE_PROPERTY}, which relaunches the
+ * JVM with it. The relaunching JVM waits for the child for the whole server lifetime and keeps the
+ * heap it was started with, so with {@code -Xms} the initial heap is committed twice.
+ */
+final class AotCache {
+
+    static final String TRAIN_ARG = "--hyinit-train";
+
+    static final String FILE_PROPERTY = "hyinit.aot.file";
+    static final String AUTO_USE_PROPERTY = "hyinit.aot.autoUse";
+    static final String IDLE_PROPERTY = "hyinit.aot.idleSeconds";
+    static final String TIMEOUT_PROPERTY = "hyinit.aot.timeoutSeconds";
+
+    private static final String DEFAULT_FILE = ".hyinit/hyinit.aot";
+    private static final int DEFAULT_IDLE_SECONDS = 15;
+    private static final int DEFAULT_TIMEOUT_SECONDS = 600;
+    private static final int MIN_JAVA_VERSION = 25;
+
+    private static final String CACHE_OPTION = "-XX:AOTCache=";
+    private static final String CACHE_OUTPUT_OPTION = "-XX:AOTCacheOutput=";
+    private static final String MODE_OPTION = "-XX:AOTMode=";
+
+    private static final HyinitLogger LOGGER = HyinitLogger.get();
+
+    private AotCache() {}
+
+    static boolean isTrainingRequested(String[] args) {
+        return Arrays.asList(args).contains(TRAIN_ARG);
+    }
+
+    static String[] stripArgs(String[] args) {
+        return Arrays.stream(args).filter(arg -> !arg.equals(TRAIN_ARG)).toArray(String[]::new);
+    }
+
+    static Path getCacheFile(Path cwd) {
+        return cwd.resolve(System.getProperty(FILE_PROPERTY, DEFAULT_FILE));
+    }
+
+    /**
+     * Returns {@code true} if this JVM has to be relaunched, either to record a cache for
+     * {@value #TRAIN_ARG} or to use an existing one.
+     */
+    static boolean shouldRelaunch(Path cwd, String[] args) {
+        if (isTrainingRequested(args)) {
+            if (Runtime.version().feature() < MIN_JAVA_VERSION) {
+                throw new IllegalStateException(
+                        "AOT cache training requires Java " + MIN_JAVA_VERSION + " or newer, running on "
+                                + Runtime.version());
+            }
+            List<String> jvmArgs = getJvmArgs();
+            return !hasOption(jvmArgs, CACHE_OUTPUT_OPTION) && !hasOption(jvmArgs, MODE_OPTION);
+        }
+
+        // Without a trained cache there is nothing to use, and no need to look at the JVM options
+        Path cacheFile = getCacheFile(cwd);
+        if (!Files.isRegularFile(cacheFile)) {
+            return false;
+        }
+
+        List<String> jvmArgs = getJvmArgs();
+        if (hasOption(jvmArgs, CACHE_OPTION)) {
+            LOGGER.info("Using AOT cache " + getOption(jvmArgs, CACHE_OPTION));
+            return false;
+        }
+
+        if (isStale(cacheFile)) {
+            LOGGER.warn(String.format(
+                    "AOT cache %s is older than the Hyinit jar, run with %s to train it again", cacheFile, TRAIN_ARG));
+            return false;
+        }
+        if (!Boolean.getBoolean(AUTO_USE_PROPERTY)) {
+            LOGGER.info(String.format(
+                    "Found AOT cache %s, add %s%s before -jar or set -D%s=true to use it",
+                    cacheFile, CACHE_OPTION, cacheFile, AUTO_USE_PROPERTY));
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Runs Hyinit in a child JVM with the AOT cache options and returns its exit code.
+     */
+    static int relaunch(Path cwd, String[] args) throws IOException, InterruptedException {
+        // This JVM only waits for the child, so there is no Hytale logger to hand records over to
+        HyinitLogger.useConsole();
+
+        Path cacheFile = getCacheFile(cwd);
+        boolean training = isTrainingRequested(args);
+
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElseThrow(() -> new IOException(
+                "Cannot determine the java executable to relaunch with")));
+        for (String jvmArg : getJvmArgs()) {
+            if (!jvmArg.startsWith(CACHE_OPTION)) {
+                command.add(jvmArg);
+            }
+        }
+
+        if (training) {
+            Files.createDirectories(cacheFile.toAbsolutePath().getParent());
+            command.add(CACHE_OUTPUT_OPTION + cacheFile);
+            LOGGER.info("Training AOT cache " + cacheFile);
+        } else {
+            command.add(CACHE_OPTION + cacheFile);
+            LOGGER.info("Relaunching with AOT cache " + cacheFile);
+            if (hasOption(command, "-Xms")) {
+                LOGGER.warn(String.format(
+                        "This JVM keeps its initial heap while waiting for the server, pass %s%s before -jar"
+                                + " instead of -D%s to avoid committing it twice",
+                        CACHE_OPTION, cacheFile, AUTO_USE_PROPERTY));
+            }
+        }
+
+        // The cache is only valid for the same class path, which -cp reproduces for -jar launches
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Main.class.getName());
+        command.addAll(Arrays.asList(args));
+
+        Process process = new ProcessBuilder(command).inheritIO().start();
+        Runtime.getRuntime()
+                .addShutdownHook(new Thread(
+                        () -> {
+                            // Forward termination so the server can save and shut down cleanly
+                            process.destroy();
+                            try {
+                                process.waitFor();
+                            } catch (InterruptedException ignored) {
+                            }
+                        },
+                        "Hyinit AOT Relaunch"));
+
+        int exitCode = process.waitFor();
+        if (training && exitCode == 0) {
+            LOGGER.info("Wrote AOT cache " + cacheFile);
+        }
+        return exitCode;
+    }
+
+    /**
+     * Exits the training JVM once no class was defined for a while after the server started, so
+     * the JVM writes the cache.
+     */
+    static void startTrainingMonitor(HyinitClassLoader classLoader) {
+        long idleNanos = TimeUnit.SECONDS.toNanos(Integer.getInteger(IDLE_PROPERTY, DEFAULT_IDLE_SECONDS));
+        long timeoutNanos =
+                TimeUnit.SECONDS.toNanos(Integer.getInteger(TIMEOUT_PROPERTY, DEFAULT_TIMEOUT_SECONDS));
+
+        Thread thread = new Thread(
+                () -> {
+                    HyinitClassLoaderMXBean statistics = classLoader.getStatistics();
+                    long start = System.nanoTime();
+                    long lastChange = start;
+                    long lastDefined = statistics.getDefinedClasses();
+
+                    while (true) {
+                        try {
+                            Thread.sleep(1000);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+
+                        long now = System.nanoTime();
+                        long defined = statistics.getDefinedClasses();
+                        if (defined != lastDefined) {
+                            lastDefined = defined;
+                            lastChange = now;
+                        } else if (now - lastChange >= idleNanos) {
+                            LOGGER.info(String.format(
+                                    "Startup finished with %d class(es) defined, stopping the training run", defined));
+                            break;
+                        }
+
+                        if (now - start >= timeoutNanos) {
+                            LOGGER.warn("Class loading did not settle before the training timeout, stopping anyway");
+                            break;
+                        }
+                    }
+
+                    System.exit(0);
+                },
+                "Hyinit AOT Training");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static boolean isStale(Path cacheFile) {
+        try {
+            Path hyinitJar = Path.of(
+                    Main.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            return Files.getLastModifiedTime(hyinitJar).compareTo(Files.getLastModifiedTime(cacheFile)) > 0;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static List<String> getJvmArgs() {
+        return ManagementFactory.getRuntimeMXBean().getInputArguments();
+    }
+
+    private static boolean hasOption(List<String> jvmArgs, String prefix) {
+        return getOption(jvmArgs, prefix) != null;
+    }
+
+    private static String getOption(List<String> jvmArgs, String prefix) {
+        for (String jvmArg : jvmArgs) {
+            if (jvmArg.startsWith(prefix)) {
+                return jvmArg.substring(prefix.length());
+            }
+        }
+        return null;
+    }
+}
@@ -1,23 +1,9 @@
 package cc.irori.hyinit;
 
-import static cc.irori.hyinit.util.JsonUtil.readStringOrStringArray;
-
-import cc.irori.hyinit.util.JsonUtil;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.util.*;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public final class ConfigCollector {
 
@@ -32,79 +18,136 @@ public final class ConfigCollector {
         Objects.requireNonNull(workingDir, "workingDir");
         Objects.requireNonNull(earlyPluginDirs, "earlyPluginDirs");
 
+        List<Path> jars = new ArrayList<>();
+        for (List<Path> dirJars : discover(earlyPluginDirs, ConfigCollector::listJars)) {
+            jars.addAll(dirJars);
+        }
+
+        return collectMixinConfigsFromJars(jars);
+    }
+
+    /**
+     * Collects the Mixin configs of already listed earlyplugin jars. The manifests are read
+     * concurrently, but configs, packages and warnings are merged in the order of {@code jars}.
+     */
+    public static Result collectMixinConfigsFromJars(List<Path> jars) {
+        Objects.requireNonNull(jars, "jars");
+
+        return merge(discover(jars, ConfigCollector::readJar));
+    }
+
+    /**
+     * Collects the Mixin configs of earlyplugins that were already read during discovery, without
+     * touching their jars again.
+     */
+    public static Result collectMixinConfigsFromPlugins(List<PluginDescriptor> plugins) {
+        Objects.requireNonNull(plugins, "plugins");
+
+        List<JarConfigs> jarConfigs = new ArrayList<>(plugins.size());
+        for (PluginDescriptor plugin : plugins) {
+            if (plugin.error() != null) {
+                JarConfigs result = new JarConfigs(plugin.path());
+                result.warnings.add(failedToRead(plugin.path(), plugin.error()));
+                jarConfigs.add(result);
+            } else {
+                jarConfigs.add(readJarInfo(plugin.path(), plugin.info()));
+            }
+        }
+
+        return merge(jarConfigs);
+    }
+
+    private static Result merge(List<JarConfigs> jarConfigs) {
         List<String> warnings = new ArrayList<>();
         Map<String, Path> origins = new LinkedHashMap<>();
         LinkedHashSet<String> configs = new LinkedHashSet<>();
+        LinkedHashSet<String> noTransformPackages = new LinkedHashSet<>();
 
-        for (Path dir : earlyPluginDirs) {
-            if (!Files.isDirectory(dir)) {
-                continue;
-            }
-
-            List<Path> jars = listJars(dir);
-
-            for (Path jar : jars) {
-                try (JarFile jf = new JarFile(jar.toFile(), false)) {
-                    JarEntry entry = jf.getJarEntry("manifest.json");
-                    if (entry == null) continue;
-
-                    JsonObject root = readJsonObject(jf, entry);
-                    List<String> found = extractMixinConfigs(root);
-
-                    for (String cfg : found) {
-                        if (cfg == null) continue;
-                        String normalized = normalizeConfigPath(cfg);
-                        if (normalized.isEmpty()) continue;
-
-                        configs.add(normalized);
-                        origins.putIfAbsent(normalized, jar);
-                    }
-                } catch (Exception e) {
-                    warnings.add("Failed to read " + jar.getFileName() + ": "
-                            + e.getClass().getSimpleName()
-                            + (e.getMessage() != null ? (": " + e.getMessage()) : ""));
-                }
+        for (JarConfigs jar : jarConfigs) {
+            for (String cfg : jar.configs) {
+                configs.add(cfg);
+                origins.putIfAbsent(cfg, jar.jar);
             }
+            noTransformPackages.addAll(jar.noTransformPackages);
+            warnings.addAll(jar.warnings);
         }
 
-        return new Result(List.copyOf(configs), Collections.unmodifiableMap(origins), List.copyOf(warnings));
+        return new Result(
+                List.copyOf(configs),
+                Collections.unmodifiableMap(origins),
+                List.copyOf(noTransformPackages),
+                List.copyOf(warnings));
     }
 
-    private static List<Path> listJars(Path dir) {
-        try (Stream<Path> s = Files.list(dir)) {
-            return s.filter(Files::isRegularFile)
-                    .filter(p ->
-                            p.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".jar"))
-                    .sorted()
-                    .collect(Collectors.toList());
+    private static <T, R> List<R> discover(List<T> items, PluginDiscovery.IOFunction<T, R> function) {
+        try {
+            return PluginDiscovery.map(items, function);
         } catch (IOException e) {
-            return List.of();
+            // Functions used here report failures as warnings instead of throwing
+            throw new UncheckedIOException(e);
         }
     }
 
-    private static JsonObject readJsonObject(JarFile jar, JarEntry entry) throws IOException {
-        try (InputStream in = jar.getInputStream(entry);
-                Reader r = new InputStreamReader(in, StandardCharsets.UTF_8)) {
-            JsonElement el = JsonParser.parseReader(r);
-            if (!el.isJsonObject()) {
-                throw new IOException("manifest.json is not a JSON object");
+    private static JarConfigs readJar(Path jar) {
+        try {
+            return readJarInfo(jar, DiscoveryIndex.disabled().get(jar));
+        } catch (Exception e) {
+            JarConfigs result = new JarConfigs(jar);
+            result.warnings.add(failedToRead(jar, e.getClass().getSimpleName()
+                    + (e.getMessage() != null ? (": " + e.getMessage()) : "")));
+            return result;
+        }
+    }
+
+    private static JarConfigs readJarInfo(Path jar, DiscoveryIndex.JarInfo info) {
+        JarConfigs result = new JarConfigs(jar);
+
+        if (!info.hasManifest()) return result;
+        if (info.manifestError() != null) {
+            result.warnings.add(failedToRead(jar, info.manifestError()));
+            return result;
+        }
+
+        for (String cfg : extractMixinConfigs(info)) {
+            if (cfg == null) continue;
+            String normalized = normalizeConfigPath(cfg);
+            if (normalized.isEmpty()) continue;
+
+            result.configs.add(normalized);
+        }
+
+        for (String pkg : info.noTransformPackages()) {
+            String normalized = normalizePackage(pkg);
+            if (normalized == null) {
+                result.warnings.add("Ignoring invalid no-transform package '" + pkg + "' in " + jar.getFileName());
+                continue;
             }
-            return el.getAsJsonObject();
+
+            result.noTransformPackages.add(normalized);
         }
+
+        return result;
     }
 
-    private static List<String> extractMixinConfigs(JsonObject root) {
-        if (root.has("Mixins")) {
-            return readStringOrStringArray(root.get("Mixins"));
+    private static String failedToRead(Path jar, String reason) {
+        return "Failed to read " + jar.getFileName() + ": " + reason;
+    }
+
+    private static List<Path> listJars(Path dir) {
+        try {
+            return PluginDiscovery.listJars(dir);
+        } catch (IOException e) {
+            return List.of();
         }
+    }
 
-        // Hyxin compatibility
-        JsonObject hyxin = JsonUtil.getObject(root, "Hyxin");
-        if (hyxin != null && hyxin.has("Configs")) {
-            return readStringOrStringArray(hyxin.get("Configs"));
+    private static List<String> extractMixinConfigs(DiscoveryIndex.JarInfo info) {
+        if (info.mixinConfigs() != null) {
+            return info.mixinConfigs();
         }
 
-        return List.of();
+        // Hyxin compatibility
+        return info.hyxinConfigs();
     }
 
     private static String normalizeConfigPath(String raw) {
@@ -114,14 +157,50 @@ public final class ConfigCollector {
         return s;
     }
 
+    /**
+     * Normalizes a package name to its dotted form with a trailing dot, so that it can be used as a
+     * class name prefix. Returns {@code null} for names that are empty or have a single segment,
+     * which would exclude far more than the plugin's own classes.
+     */
+    private static String normalizePackage(String raw) {
+        if (raw == null) return null;
+        String s = raw.trim().replace('/', '.');
+        if (s.endsWith("*")) s = s.substring(0, s.length() - 1);
+        while (s.endsWith(".")) s = s.substring(0, s.length() - 1);
+        if (s.isEmpty() || s.indexOf('.') < 0) return null;
+        return s + ".";
+    }
+
+    /** What was read from a single jar, kept in encounter order so that it can be merged deterministically. */
+    private static final class JarConfigs {
+        private final Path jar;
+        private final List<String> configs = new ArrayList<>();
+        private final List<String> noTransformPackages = new ArrayList<>();
+        private final List<String> warnings = new ArrayList<>();
+
+        private JarConfigs(Path jar) {
+            this.jar = jar;
+        }
+    }
+
     public static final class Result {
         private final List<String> configs;
         private final Map<String, Path> origins;
+        private final List<String> noTransformPackages;
         private final List<String> warnings;
 
         public Result(List<String> configs, Map<String, Path> origins, List<String> warnings) {
+            this(configs, origins, List.of(), warnings);
+        }
+
+        public Result(
+                List<String> configs,
+                Map<String, Path> origins,
+                List<String> noTransformPackages,
+                List<String> warnings) {
             this.configs = Objects.requireNonNull(configs, "configs");
             this.origins = Objects.requireNonNull(origins, "origins");
+            this.noTransformPackages = Objects.requireNonNull(noTransformPackages, "noTransformPackages");
             this.warnings = Objects.requireNonNull(warnings, "warnings");
         }
 
@@ -133,6 +212,10 @@ public final class ConfigCollector {
             return origins;
         }
 
+        public List<String> noTransformPackages() {
+            return noTransformPackages;
+        }
+
         public List<String> warnings() {
             return warnings;
         }
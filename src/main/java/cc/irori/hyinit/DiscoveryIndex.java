@@ -0,0 +1,439 @@
+package cc.irori.hyinit;
+
+import static cc.irori.hyinit.util.JsonUtil.readStringOrStringArray;
+
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.CRC32C;
+
+/**
+ * Persistent index of what startup discovery reads from jars.
+ *
+ * <p>For every jar that is looked up, the index stores its Mixin and Hyxin configs, its
+ * no-transform packages and whether it is a server jar. Entries are keyed by the jar's path, size
+ * and modification time, optionally together with a checksum of its zip central directory, and a
+ * jar whose entry still matches is not opened at all. Only entries looked up
+ * during a run are written back, so jars that were removed drop out of the index.
+ *
+ * <p>An unreadable or corrupted index file is discarded and rebuilt from the jars.
+ */
+final class DiscoveryIndex {
+
+    public static final String ENABLED_PROPERTY = "hyinit.discoveryIndex";
+    public static final String FILE_PROPERTY = "hyinit.discoveryIndex.file";
+    public static final String VERIFY_PROPERTY = "hyinit.discoveryIndex.verify";
+
+    private static final String DEFAULT_FILE = ".hyinit/discovery.index";
+
+    private static final int MAGIC = 0x48594449; // "HYDI"
+    private static final int VERSION = 2;
+
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int EOCD_LENGTH = 22;
+    private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+
+    private static final DiscoveryIndex DISABLED = new DiscoveryIndex(null, false, Map.of());
+
+    private final Path file;
+    private final boolean verify;
+    private final Map<String, Entry> stored;
+    private final Map<String, Entry> retained = new ConcurrentHashMap<>();
+
+    private final LongAdder reused = new LongAdder();
+    private final LongAdder scanned = new LongAdder();
+
+    private DiscoveryIndex(Path file, boolean verify, Map<String, Entry> stored) {
+        this.file = file;
+        this.verify = verify;
+        this.stored = stored;
+    }
+
+    static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    /** An index that scans every jar and never persists anything. */
+    static DiscoveryIndex disabled() {
+        return DISABLED;
+    }
+
+    static DiscoveryIndex open(Path workingDir) {
+        if (!isEnabled()) {
+            return DISABLED;
+        }
+
+        Path file = workingDir.resolve(System.getProperty(FILE_PROPERTY, DEFAULT_FILE));
+        boolean verify = Boolean.getBoolean(VERIFY_PROPERTY);
+
+        Map<String, Entry> stored = new ConcurrentHashMap<>();
+        if (Files.isRegularFile(file)) {
+            try {
+                stored.putAll(read(file));
+            } catch (IOException e) {
+                HyinitLogger.get().warn("Discarding unreadable discovery index " + file + ", rebuilding it", e);
+                stored.clear();
+            }
+        }
+
+        return new DiscoveryIndex(file, verify, stored);
+    }
+
+    /**
+     * Returns what discovery needs from {@code jar}, from the index when the jar is unchanged and
+     * by opening the jar otherwise.
+     *
+     * @throws IOException if the jar cannot be opened
+     */
+    JarInfo get(Path jar) throws IOException {
+        return get(jar, null);
+    }
+
+    /**
+     * Like {@link #get(Path)}, but reads from {@code open} instead of opening the jar again when
+     * the index has no matching entry. {@code open} is left open.
+     */
+    JarInfo get(Path jar, JarFile open) throws IOException {
+        if (file == null) {
+            scanned.increment();
+            return scan(jar, open);
+        }
+
+        String key = jar.toAbsolutePath().normalize().toString();
+        BasicFileAttributes attributes = Files.readAttributes(jar, BasicFileAttributes.class);
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        long checksum = verify ? centralDirectoryChecksum(jar) : 0;
+
+        Entry entry = stored.get(key);
+        if (entry != null
+                && entry.size() == size
+                && entry.lastModified() == lastModified
+                && entry.checksum() == checksum) {
+            reused.increment();
+            retained.put(key, entry);
+            return entry.info();
+        }
+
+        scanned.increment();
+        JarInfo info = scan(jar, open);
+        retained.put(key, new Entry(size, lastModified, checksum, info));
+        return info;
+    }
+
+    /** Writes the entries looked up during this run back to disk. */
+    void save() {
+        if (file == null || (scanned.sum() == 0 && retained.size() == stored.size())) {
+            return;
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (DataOutputStream data = new DataOutputStream(buffer)) {
+            data.writeInt(MAGIC);
+            data.writeInt(VERSION);
+            data.writeInt(retained.size());
+            for (Map.Entry<String, Entry> e : retained.entrySet()) {
+                writeEntry(data, e.getKey(), e.getValue());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        byte[] payload = buffer.toByteArray();
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+
+        // Write to a temporary file and move it into place, so a crash never leaves a partial index
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(temp))) {
+                out.write(payload);
+                out.writeLong(crc.getValue());
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            HyinitLogger.get().warn("Failed to write discovery index " + file, e);
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    boolean isPersistent() {
+        return file != null;
+    }
+
+    Stats stats() {
+        return new Stats(reused.sum(), scanned.sum(), retained.size());
+    }
+
+    /** Reads everything discovery needs from a jar. */
+    private static JarInfo scan(Path jar, JarFile open) throws IOException {
+        if (open != null) {
+            return scan(open);
+        }
+
+        try (JarFile jf = new JarFile(jar.toFile(), false)) {
+            return scan(jf);
+        }
+    }
+
+    private static JarInfo scan(JarFile jf) throws IOException {
+        boolean serverJar = jf.getJarEntry("manifests.json") != null;
+
+        JarEntry manifest = jf.getJarEntry("manifest.json");
+        if (manifest == null) {
+            return new JarInfo(serverJar, false, null, List.of(), List.of(), null);
+        }
+
+        try {
+            return readManifest(jf, manifest, serverJar);
+        } catch (Exception e) {
+            String error = e.getClass().getSimpleName() + (e.getMessage() != null ? (": " + e.getMessage()) : "");
+            return new JarInfo(serverJar, true, null, List.of(), List.of(), error);
+        }
+    }
+
+    /**
+     * Streams the keys of {@code manifest.json} that discovery uses, skipping everything else
+     * without building a tree, and stops once nothing later in the file can change the result.
+     */
+    private static JarInfo readManifest(JarFile jf, JarEntry entry, boolean serverJar) throws IOException {
+        List<String> mixinConfigs = null;
+        List<String> hyxinConfigs = List.of();
+        List<String> noTransformPackages = null;
+
+        try (JsonReader reader =
+                new JsonReader(new InputStreamReader(jf.getInputStream(entry), StandardCharsets.UTF_8))) {
+            reader.setStrictness(Strictness.LENIENT);
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                throw new IOException("manifest.json is not a JSON object");
+            }
+
+            reader.beginObject();
+            // Hyxin configs are only used without Mixins, so they do not need to be waited for
+            while (reader.hasNext() && (mixinConfigs == null || noTransformPackages == null)) {
+                switch (reader.nextName()) {
+                    case "Mixins" -> mixinConfigs = readStringOrStringArray(reader);
+                    case "NoTransformPackages" -> noTransformPackages = readStringOrStringArray(reader);
+                    case "Hyxin" -> hyxinConfigs = readHyxinConfigs(reader);
+                    default -> reader.skipValue();
+                }
+            }
+        }
+
+        return new JarInfo(
+                serverJar,
+                true,
+                mixinConfigs != null ? List.copyOf(mixinConfigs) : null,
+                List.copyOf(hyxinConfigs),
+                noTransformPackages != null ? List.copyOf(noTransformPackages) : List.of(),
+                null);
+    }
+
+    private static List<String> readHyxinConfigs(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return List.of();
+        }
+
+        List<String> configs = List.of();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("Configs")) {
+                configs = readStringOrStringArray(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return configs;
+    }
+
+    /**
+     * Computes a checksum of the zip central directory, which lists the name, size and CRC of
+     * every entry. Only the end of the file is read, without opening the jar as a zip.
+     */
+    private static long centralDirectoryChecksum(Path jar) throws IOException {
+        try (FileChannel channel = FileChannel.open(jar, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            int tailLength = (int) Math.min(fileSize, EOCD_LENGTH + MAX_COMMENT_LENGTH);
+            ByteBuffer tail = ByteBuffer.allocate(tailLength).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(tail, fileSize - tailLength);
+
+            for (int i = tailLength - EOCD_LENGTH; i >= 0; i--) {
+                if (tail.getInt(i) != EOCD_SIGNATURE) {
+                    continue;
+                }
+
+                long directorySize = Integer.toUnsignedLong(tail.getInt(i + 12));
+                long directoryOffset = Integer.toUnsignedLong(tail.getInt(i + 16));
+                if (directoryOffset + directorySize > fileSize || directorySize > Integer.MAX_VALUE) {
+                    break;
+                }
+
+                ByteBuffer directory = ByteBuffer.allocate((int) directorySize);
+                channel.read(directory, directoryOffset);
+                CRC32C crc = new CRC32C();
+                crc.update(directory.flip());
+                // Never 0, which stands for "not verified"
+                return crc.getValue() | 1L << 32;
+            }
+        }
+
+        // Not a zip file, so the jar is scanned and fails like it would without the index
+        return -1;
+    }
+
+    private static Map<String, Entry> read(Path file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        if (bytes.length < Long.BYTES) {
+            throw new IOException("Truncated index");
+        }
+
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, 0, bytes.length - Long.BYTES);
+        long checksum = ByteBuffer.wrap(bytes, bytes.length - Long.BYTES, Long.BYTES).getLong();
+        if (crc.getValue() != checksum) {
+            throw new IOException("Corrupted index");
+        }
+
+        try (DataInputStream data =
+                new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - Long.BYTES))) {
+            if (data.readInt() != MAGIC) {
+                throw new IOException("Bad magic");
+            }
+            if (data.readInt() != VERSION) {
+                // Written by another version of Hyinit, simply rebuild it
+                return Map.of();
+            }
+
+            int count = data.readInt();
+            Map<String, Entry> entries = new ConcurrentHashMap<>();
+            for (int i = 0; i < count; i++) {
+                String key = data.readUTF();
+                entries.put(key, readEntry(data));
+            }
+            return entries;
+        }
+    }
+
+    private static void writeEntry(DataOutputStream data, String key, Entry entry) throws IOException {
+        JarInfo info = entry.info();
+        data.writeUTF(key);
+        data.writeLong(entry.size());
+        data.writeLong(entry.lastModified());
+        data.writeLong(entry.checksum());
+        data.writeBoolean(info.serverJar());
+        data.writeBoolean(info.hasManifest());
+        writeStrings(data, info.mixinConfigs());
+        writeStrings(data, info.hyxinConfigs());
+        writeStrings(data, info.noTransformPackages());
+        data.writeBoolean(info.manifestError() != null);
+        if (info.manifestError() != null) {
+            data.writeUTF(info.manifestError());
+        }
+    }
+
+    private static Entry readEntry(DataInputStream data) throws IOException {
+        long size = data.readLong();
+        long lastModified = data.readLong();
+        long checksum = data.readLong();
+        boolean serverJar = data.readBoolean();
+        boolean hasManifest = data.readBoolean();
+        List<String> mixinConfigs = readStrings(data);
+        List<String> hyxinConfigs = readStrings(data);
+        List<String> noTransformPackages = readStrings(data);
+        String manifestError = data.readBoolean() ? data.readUTF() : null;
+
+        return new Entry(
+                size,
+                lastModified,
+                checksum,
+                new JarInfo(
+                        serverJar,
+                        hasManifest,
+                        mixinConfigs,
+                        hyxinConfigs != null ? hyxinConfigs : List.of(),
+                        noTransformPackages != null ? noTransformPackages : List.of(),
+                        manifestError));
+    }
+
+    private static void writeStrings(DataOutputStream data, List<String> strings) throws IOException {
+        if (strings == null) {
+            data.writeInt(-1);
+            return;
+        }
+
+        data.writeInt(strings.size());
+        for (String s : strings) {
+            data.writeUTF(s);
+        }
+    }
+
+    private static List<String> readStrings(DataInputStream data) throws IOException {
+        int count = data.readInt();
+        if (count < 0) {
+            return null;
+        }
+
+        List<String> strings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            strings.add(data.readUTF());
+        }
+        return List.copyOf(strings);
+    }
+
+    /**
+     * What discovery reads from a jar.
+     *
+     * @param mixinConfigs the raw {@code Mixins} of {@code manifest.json}, or {@code null} if absent
+     * @param manifestError why {@code manifest.json} could not be parsed, or {@code null}
+     */
+    record JarInfo(
+            boolean serverJar,
+            boolean hasManifest,
+            List<String> mixinConfigs,
+            List<String> hyxinConfigs,
+            List<String> noTransformPackages,
+            String manifestError) {}
+
+    record Stats(long reused, long scanned, int entries) {
+
+        @Override
+        public String toString() {
+            return String.format("%d jar(s) reused, %d scanned, %d entries", reused, scanned, entries);
+        }
+    }
+
+    private record Entry(long size, long lastModified, long checksum, JarInfo info) {}
+}
@@ -1,7 +1,8 @@
 package cc.irori.hyinit;
 
 import cc.irori.hyinit.util.ReflectionUtil;
-import java.lang.reflect.Method;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
 
@@ -10,8 +11,9 @@ public class HyinitLogManager extends LogManager {
     private static HyinitLogManager instance;
     private static Object hytaleLogManager;
 
-    private static Method resetMethod;
-    private static Method getLoggerMethod;
+    // Every logger lookup of the JVM goes through these once delegated, so avoid Method.invoke
+    private static Consumer<Object> resetAccessor;
+    private static BiFunction<Object, String, Logger> getLoggerAccessor;
 
     public HyinitLogManager() {
         instance = this;
@@ -23,7 +25,7 @@ public class HyinitLogManager extends LogManager {
             super.reset();
             return;
         }
-        ReflectionUtil.invokeMethod(resetMethod, hytaleLogManager);
+        resetAccessor.accept(hytaleLogManager);
     }
 
     @Override
@@ -31,9 +33,10 @@ public class HyinitLogManager extends LogManager {
         if (!isDelegated()) {
             return super.getLogger(name);
         }
-        return (Logger) ReflectionUtil.invokeMethod(getLoggerMethod, hytaleLogManager, name);
+        return getLoggerAccessor.apply(hytaleLogManager, name);
     }
 
+    @SuppressWarnings("unchecked")
     public static void enableDelegate(Object delegate) {
         if (hytaleLogManager != null) {
             throw new IllegalStateException("HytaleLogManager delegate is already set");
@@ -42,13 +45,31 @@ public class HyinitLogManager extends LogManager {
         try {
             hytaleLogManager = delegate;
 
-            resetMethod = ReflectionUtil.getDeclaredMethod(delegate.getClass(), "reset");
-            getLoggerMethod = ReflectionUtil.getDeclaredMethod(delegate.getClass(), "getLogger", String.class);
+            resetAccessor = ReflectionUtil.getAccessor(
+                    ReflectionUtil.getDeclaredMethod(delegate.getClass(), "reset"), Consumer.class);
+            getLoggerAccessor = ReflectionUtil.getAccessor(
+                    ReflectionUtil.getDeclaredMethod(delegate.getClass(), "getLogger", String.class),
+                    BiFunction.class);
         } catch (Throwable e) {
             HyinitLogger.get().error("Failed to initialize HytaleLogManager delegate", e);
         }
     }
 
+    /**
+     * Returns a logger of Hytale's log manager, or {@code null} if the delegate is not enabled.
+     */
+    static Logger getDelegateLogger(String name) {
+        if (!isDelegated() || getLoggerAccessor == null) {
+            return null;
+        }
+
+        try {
+            return getLoggerAccessor.apply(hytaleLogManager, name);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
     private static boolean isDelegated() {
         return hytaleLogManager != null;
     }
@@ -1,18 +1,94 @@
 package cc.irori.hyinit;
 
-import com.hypixel.hytale.logger.HytaleLogger;
+import java.io.PrintStream;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
 import org.spongepowered.asm.logging.ILogger;
 import org.spongepowered.asm.logging.Level;
-import org.spongepowered.asm.logging.LoggerAdapterConsole;
 
+/**
+ * Logger of Hyinit and Mixin.
+ *
+ * <p>Until Hytale's logging is initialized, records are appended to a lock-free ring buffer instead
+ * of being written to the console, so the threads loading classes during startup never wait on
+ * console output. Once {@code MixinLateMain} has set up the log manager delegate, the buffered
+ * records are replayed in order into Hytale's logger, and later records are passed to it directly.
+ *
+ * <p>If the delegate is never enabled, for example because startup fails or the server is stopped
+ * before it gets that far, the buffer is written to the console instead: when it fills up, on JVM
+ * shutdown, or after {@link #CONSOLE_FALLBACK_SECONDS} at the latest. Records are always checked
+ * against the level before anything is formatted. Parameters are converted to strings as the
+ * record is logged, so a buffered record shows the state of its parameters at that time and keeps
+ * no references to them; only substituting them into the message is left to the writer.
+ */
 public final class HyinitLogger implements ILogger {
 
+    private static final String LOGGER_NAME = "Hyinit";
+
+    private static final int BUFFER_CAPACITY = 4096;
+    private static final long CONSOLE_FALLBACK_SECONDS = 30;
+    private static final int MAX_TEMPLATES = 1024;
+
+    private static final int MODE_BUFFERING = 0;
+    private static final int MODE_DELEGATED = 1;
+    private static final int MODE_CONSOLE = 2;
+
     private static final HyinitLogger INSTANCE = new HyinitLogger();
 
-    private static final String LOGGER_NAME = "Hyinit";
-    private static final ILogger JAVA_LOGGER = new LoggerAdapterConsole(LOGGER_NAME);
+    private final LogRingBuffer<Entry> buffer = new LogRingBuffer<>(BUFFER_CAPACITY);
+    private final Map<String, String[]> templates = new ConcurrentHashMap<>();
+
+    private volatile int mode = MODE_BUFFERING;
+    private volatile Logger delegate;
+
+    private HyinitLogger() {
+        Runtime.getRuntime()
+                .addShutdownHook(new Thread(this::fallBackToConsole, "Hyinit Logger Shutdown"));
+
+        Thread fallback = new Thread(
+                () -> {
+                    try {
+                        TimeUnit.SECONDS.sleep(CONSOLE_FALLBACK_SECONDS);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    fallBackToConsole();
+                },
+                "Hyinit Logger Fallback");
+        fallback.setDaemon(true);
+        fallback.start();
+    }
+
+    public static HyinitLogger get() {
+        return INSTANCE;
+    }
 
-    private HytaleLogger hytaleLogger;
+    /**
+     * Replays the buffered records into Hytale's logger and passes all later records to it. Called
+     * reflectively by {@code MixinLateMain} once {@code HytaleLogger} is initialized.
+     */
+    public static void enableDelegate() {
+        Logger logger = HyinitLogManager.getDelegateLogger(LOGGER_NAME);
+        if (logger == null) {
+            INSTANCE.fallBackToConsole();
+            return;
+        }
+
+        INSTANCE.delegate = logger;
+        INSTANCE.switchTo(MODE_DELEGATED);
+    }
+
+    /**
+     * Writes the buffered records and all later records to the console, for JVMs that never start
+     * the server themselves.
+     */
+    public static void useConsole() {
+        INSTANCE.fallBackToConsole();
+    }
 
     @Override
     public String getId() {
@@ -26,110 +102,62 @@ public final class HyinitLogger implements ILogger {
 
     @Override
     public void catching(Level level, Throwable t) {
-        if (!isHytaleLoggerAvailable()) {
-            JAVA_LOGGER.catching(level, t);
-            return;
-        }
-        hytaleLogger.at(toJavaLevel(level)).log();
+        log(level, "Catching " + t, t);
     }
 
     @Override
     public void catching(Throwable t) {
-        if (!isHytaleLoggerAvailable()) {
-            JAVA_LOGGER.catching(t);
-            return;
-        }
-        hytaleLogger.at(java.util.logging.Level.SEVERE).log();
+        catching(Level.WARN, t);
     }
 
     @Override
     public void trace(String message, Object... params) {
-        if (!isHytaleLoggerAvailable()) {
-            JAVA_LOGGER.trace(message, params);
-            return;
-        }
-        hytaleLogger.at(java.util.logging.Level.FINEST).log(replaceParams(message), params);
+        log(Level.TRACE, message, params);
     }
 
     @Override
     public void trace(String message, Throwable t) {
-        if (!isHytaleLoggerAvailable()) {
-            JAVA_LOGGER.trace(message, t);
-            return;
-        }
-        hytaleLogger.at(java.util.logging.Level.FINEST).withCause(t).log(replaceParams(message));
+        log(Level.TRACE, message, t);
     }
 
     @Override
     public void debug(String message, Object... params) {
-        if (!isHytaleLoggerAvailable()) {
-            JAVA_LOGGER.debug(message, params);
-            return;
-        }
-        hytaleLogger.at(java.util.logging.Level.FINE).log(replaceParams(message), params);
+        log(Level.DEBUG, message, params);
     }
 
     @Override
     public void debug(String message, Throwable t) {
-        if (!isHytaleLoggerAvailable()) {
-            JAVA_LOGGER.debug(message, t);
-            return;
-        }
-        hytaleLogger.at(java.util.logging.Level.FINE).withCause(t).log(replaceParams(message));
+        log(Level.DEBUG, message, t);
     }
 
     @Override
     public void info(String message, Object... params) {
-        if (!isHytaleLoggerAvailable()) {
-            JAVA_LOGGER.info(message, params);
-            return;
-        }
-        hytaleLogger.at(java.util.logging.Level.INFO).log(replaceParams(message), params);
+        log(Level.INFO, message, params);
     }
 
     @Override
     public void info(String message, Throwable t) {
-        if (!isHytaleLoggerAvailable()) {
-            JAVA_LOGGER.info(message, t);
-            return;
-        }
-        hytaleLogger.at(java.util.logging.Level.INFO).withCause(t).log(replaceParams(message));
+        log(Level.INFO, message, t);
     }
 
     @Override
     public void warn(String message, Object... params) {
-        if (!isHytaleLoggerAvailable()) {
-            JAVA_LOGGER.warn(message, params);
-            return;
-        }
-        hytaleLogger.at(java.util.logging.Level.WARNING).log(replaceParams(message), params);
+        log(Level.WARN, message, params);
     }
 
     @Override
     public void warn(String message, Throwable t) {
-        if (!isHytaleLoggerAvailable()) {
-            JAVA_LOGGER.warn(message, t);
-            return;
-        }
-        hytaleLogger.at(java.util.logging.Level.WARNING).withCause(t).log(replaceParams(message));
+        log(Level.WARN, message, t);
     }
 
     @Override
     public void error(String message, Object... params) {
-        if (!isHytaleLoggerAvailable()) {
-            JAVA_LOGGER.error(message, params);
-            return;
-        }
-        hytaleLogger.at(java.util.logging.Level.SEVERE).log(replaceParams(message), params);
+        log(Level.ERROR, message, params);
     }
 
     @Override
     public void error(String message, Throwable t) {
-        if (!isHytaleLoggerAvailable()) {
-            JAVA_LOGGER.error(message, t);
-            return;
-        }
-        hytaleLogger.at(java.util.logging.Level.SEVERE).withCause(t).log(replaceParams(message));
+        log(Level.ERROR, message, t);
     }
 
     @Override
@@ -144,42 +172,176 @@ public final class HyinitLogger implements ILogger {
 
     @Override
     public void log(Level level, String message, Object... params) {
-        if (!isHytaleLoggerAvailable()) {
-            JAVA_LOGGER.log(level, message, params);
-            return;
+        if (isEnabled(level)) {
+            append(new Entry(
+                    level,
+                    message,
+                    toStrings(params),
+                    trailingThrowable(message, params),
+                    System.currentTimeMillis(),
+                    threadName()));
         }
-        hytaleLogger.at(toJavaLevel(level)).log(replaceParams(message), params);
     }
 
     @Override
     public void log(Level level, String message, Throwable t) {
-        if (!isHytaleLoggerAvailable()) {
-            JAVA_LOGGER.log(level, message, t);
-            return;
+        if (isEnabled(level)) {
+            append(new Entry(level, message, null, t, System.currentTimeMillis(), threadName()));
         }
-        hytaleLogger.at(toJavaLevel(level)).withCause(t).log(replaceParams(message));
     }
 
     @Override
     public <T extends Throwable> T throwing(T t) {
-        if (isHytaleLoggerAvailable()) {
-            hytaleLogger.atWarning().withCause(t).log();
+        log(Level.WARN, "Throwing", t);
+        return t;
+    }
+
+    private boolean isEnabled(Level level) {
+        if (mode == MODE_DELEGATED) {
+            return delegate.isLoggable(toJavaLevel(level));
+        }
+        // Matches the console adapter of Mixin, which drops debug and trace output
+        return level != Level.DEBUG && level != Level.TRACE;
+    }
+
+    private void append(Entry entry) {
+        if (mode == MODE_BUFFERING) {
+            while (!buffer.offer(entry)) {
+                // Make room by writing the oldest half to the console
+                buffer.drain(buffer.capacity() / 2, this::writeToConsole);
+            }
+
+            if (mode == MODE_BUFFERING) {
+                return;
+            }
+            // The mode changed while the entry was appended, make sure it is not left behind
+            buffer.drainAll(this::write);
+            return;
+        }
+
+        write(entry);
+    }
+
+    private void fallBackToConsole() {
+        if (mode == MODE_BUFFERING) {
+            switchTo(MODE_CONSOLE);
+        }
+    }
+
+    private synchronized void switchTo(int newMode) {
+        if (mode != MODE_BUFFERING) {
+            return;
+        }
+        // Replay before producers start writing directly, then pick up what raced with the switch
+        buffer.drainAll(this::write);
+        mode = newMode;
+        buffer.drainAll(this::write);
+    }
+
+    private void write(Entry entry) {
+        if (delegate != null) {
+            writeToDelegate(entry);
         } else {
-            JAVA_LOGGER.warn("throwing", t);
+            writeToConsole(entry);
         }
-        return t;
     }
 
-    private boolean isHytaleLoggerAvailable() {
-        if (hytaleLogger != null) {
-            return true;
+    private void writeToDelegate(Entry entry) {
+        java.util.logging.Level level = toJavaLevel(entry.level());
+        Logger logger = delegate;
+        if (!logger.isLoggable(level)) {
+            return;
+        }
+
+        LogRecord record = new LogRecord(level, format(entry));
+        record.setLoggerName(logger.getName());
+        record.setInstant(Instant.ofEpochMilli(entry.millis()));
+        record.setThrown(entry.thrown());
+        // The caller would be this class anyway, skip the stack walk inferring it
+        record.setSourceClassName(null);
+        record.setSourceMethodName(null);
+        logger.log(record);
+    }
+
+    private void writeToConsole(Entry entry) {
+        PrintStream out = entry.level() == Level.INFO ? System.out : System.err;
+        Throwable thrown = entry.thrown();
+
+        synchronized (out) {
+            out.println(String.format("[%s] [%s/%s] %s", LOGGER_NAME, entry.thread(), entry.level(), format(entry)));
+            if (thrown != null) {
+                thrown.printStackTrace(out);
+            }
+        }
+    }
+
+    /**
+     * Substitutes the {@code {}} placeholders of the entry's message. Messages are split at their
+     * placeholders once and the parts are cached, as most messages are constant templates.
+     */
+    private String format(Entry entry) {
+        String message = entry.message();
+        String[] params = entry.params();
+        if (message == null || params == null || params.length == 0) {
+            return message;
+        }
+
+        String[] parts = templates.get(message);
+        if (parts == null) {
+            parts = message.split("\\{}", -1);
+            if (templates.size() >= MAX_TEMPLATES) {
+                // Messages built by concatenation would grow the cache forever
+                templates.clear();
+            }
+            templates.put(message, parts);
+        }
+
+        StringBuilder builder = new StringBuilder(message.length() + 16 * params.length);
+        builder.append(parts[0]);
+        for (int i = 1; i < parts.length; i++) {
+            builder.append(i - 1 < params.length ? params[i - 1] : "{}");
+            builder.append(parts[i]);
+        }
+        return builder.toString();
+    }
+
+    private static String[] toStrings(Object[] params) {
+        if (params == null || params.length == 0) {
+            return null;
+        }
+
+        String[] strings = new String[params.length];
+        for (int i = 0; i < params.length; i++) {
+            strings[i] = String.valueOf(params[i]);
+        }
+        return strings;
+    }
+
+    /** Like Mixin's own loggers, a throwable passed after the last used parameter is the cause. */
+    private Throwable trailingThrowable(String message, Object[] params) {
+        if (params == null || params.length == 0 || !(params[params.length - 1] instanceof Throwable t)) {
+            return null;
+        }
+
+        String[] parts = message != null ? templates.get(message) : null;
+        int placeholders = parts != null ? parts.length - 1 : countPlaceholders(message);
+        return params.length > placeholders ? t : null;
+    }
+
+    private static int countPlaceholders(String message) {
+        if (message == null) {
+            return 0;
         }
-        try {
-            hytaleLogger = HytaleLogger.get(LOGGER_NAME);
-            return hytaleLogger != null;
-        } catch (NoClassDefFoundError | Exception ignored) {
-            return false;
+
+        int count = 0;
+        for (int i = message.indexOf("{}"); i >= 0; i = message.indexOf("{}", i + 2)) {
+            count++;
         }
+        return count;
+    }
+
+    private static String threadName() {
+        return Thread.currentThread().getName();
     }
 
     private static java.util.logging.Level toJavaLevel(Level level) {
@@ -192,14 +354,5 @@ public final class HyinitLogger implements ILogger {
         };
     }
 
-    private static String replaceParams(String message) {
-        if (message == null) {
-            return null;
-        }
-        return message.replace("{}", "%s");
-    }
-
-    public static HyinitLogger get() {
-        return INSTANCE;
-    }
+    private record Entry(Level level, String message, String[] params, Throwable thrown, long millis, String thread) {}
 }
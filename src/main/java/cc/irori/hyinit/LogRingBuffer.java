@@ -0,0 +1,76 @@
+package cc.irori.hyinit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded multi-producer ring buffer.
+ *
+ * <p>Producers claim a slot with a single compare-and-set on the tail and never block. Draining is
+ * serialized by a lock, and only happens when the buffer is full or its contents are handed over,
+ * so the lock is never taken on the common path.
+ */
+final class LogRingBuffer<T> {
+
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final Object drainLock = new Object();
+
+    /**
+     * @param capacity the number of elements the buffer holds, rounded up to a power of two
+     */
+    LogRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        slots = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+    }
+
+    /** Appends an element, returning {@code false} if the buffer is full. */
+    boolean offer(T element) {
+        while (true) {
+            long t = tail.get();
+            if (t - head.get() >= slots.length()) {
+                return false;
+            }
+            if (tail.compareAndSet(t, t + 1)) {
+                slots.set((int) t & mask, element);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Removes the oldest elements, at most {@code max} of them, and passes them to {@code consumer}
+     * in the order they were appended.
+     */
+    void drain(int max, Consumer<? super T> consumer) {
+        synchronized (drainLock) {
+            long h = head.get();
+            long end = Math.min(tail.get(), h + max);
+
+            for (; h < end; h++) {
+                int index = (int) h & mask;
+                T element;
+                // A producer may have claimed the slot without having published into it yet
+                while ((element = slots.get(index)) == null) {
+                    Thread.onSpinWait();
+                }
+                slots.set(index, null);
+                head.set(h + 1);
+                consumer.accept(element);
+            }
+        }
+    }
+
+    void drainAll(Consumer<? super T> consumer) {
+        drain(Integer.MAX_VALUE, consumer);
+    }
+
+    int capacity() {
+        return slots.length();
+    }
+}
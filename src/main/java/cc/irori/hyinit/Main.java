@@ -1,20 +1,26 @@
 package cc.irori.hyinit;
 
+import cc.irori.hyinit.mixin.ClassPrefetcher;
 import cc.irori.hyinit.mixin.HyinitClassLoader;
 import cc.irori.hyinit.mixin.HyinitMixinBootstrap;
 import cc.irori.hyinit.mixin.HyinitMixinService;
+import cc.irori.hyinit.mixin.MixinAuditTrail;
+import cc.irori.hyinit.mixin.MixinTargetIndex;
+import cc.irori.hyinit.mixin.TransformCache;
 import cc.irori.hyinit.shared.SourceMetadata;
+import cc.irori.hyinit.trace.StartupTrace;
+import cc.irori.hyinit.trace.StartupTrace.Span;
 import cc.irori.hyinit.util.SneakyThrow;
 import com.llamalad7.mixinextras.MixinExtrasBootstrap;
+import java.io.IOException;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
 import org.spongepowered.asm.launch.MixinBootstrap;
 import org.spongepowered.asm.mixin.MixinEnvironment;
 import org.spongepowered.asm.mixin.Mixins;
@@ -24,17 +30,32 @@ public final class Main {
     private static final HyinitLogger LOGGER = HyinitLogger.get();
 
     private static final String HYTALE_MAIN = "com.hypixel.hytale.Main";
+    private static final String HYINIT_MIXIN_CONFIG = "_hyinit.mixins.json";
+
+    private static final boolean MIXIN_TARGET_DEBUG = System.getProperty("hyinit.debugMixinTargets") != null;
 
     static void main(String[] args) throws Exception {
         Path cwd = Paths.get("").toAbsolutePath().normalize();
 
-        Path serverJar = ServerJarLocator.locate(args);
+        if (AotCache.shouldRelaunch(cwd, args)) {
+            System.exit(AotCache.relaunch(cwd, args));
+        }
+
+        DiscoveryIndex discoveryIndex = DiscoveryIndex.open(cwd);
+
+        Path serverJar;
+        try (Span span = StartupTrace.begin(StartupTrace.CATEGORY_BOOTSTRAP, "Locate server jar")) {
+            serverJar = ServerJarLocator.locate(args, discoveryIndex);
+        }
         // Remove args used by hyinit so we don't pass them to the server
         // causing a "UnrecognizedOptionException"
-        final String[] serverArgs = ServerJarLocator.stripArgs(args);
+        final String[] serverArgs = AotCache.stripArgs(ServerJarLocator.stripArgs(args));
         System.out.println("Using server jar: " + serverJar);
 
         HyinitClassLoader classLoader = new HyinitClassLoader();
+        if (HyinitClassLoader.isJmxEnabled()) {
+            classLoader.registerMBean();
+        }
         classLoader.addCodeSource(serverJar, new SourceMetadata(false));
         classLoader.addCodeSource(
                 Paths.get(Main.class
@@ -47,15 +68,27 @@ public final class Main {
         earlyPluginDirs.add(cwd.resolve("earlyplugins"));
         earlyPluginDirs.addAll(parseEarlyPluginPaths(args));
 
-        for (Path dir : earlyPluginDirs) {
-            for (Path path : collectClasspathJars(serverJar, dir)) {
-                classLoader.addCodeSource(path, new SourceMetadata(true));
-            }
+        // Every earlyplugin jar is opened once, and the class loader takes over the open jar
+        List<PluginDescriptor> earlyPlugins;
+        try (Span span = StartupTrace.begin(StartupTrace.CATEGORY_BOOTSTRAP, "Discover earlyplugins")) {
+            earlyPlugins = PluginDiscovery.map(
+                    PluginDiscovery.listJars(earlyPluginDirs),
+                    jar -> PluginDescriptor.open(jar, new SourceMetadata(true), discoveryIndex));
+        }
+        for (PluginDescriptor plugin : earlyPlugins) {
+            classLoader.addCodeSource(plugin.path(), plugin.metadata(), plugin.jarFile());
         }
 
         HyinitMixinService.setGameClassLoader(classLoader);
 
-        ConfigCollector.Result result = ConfigCollector.collectMixinConfigs(cwd, earlyPluginDirs);
+        ConfigCollector.Result result;
+        try (Span span = StartupTrace.begin(StartupTrace.CATEGORY_BOOTSTRAP, "Collect Mixin configs")) {
+            result = ConfigCollector.collectMixinConfigsFromPlugins(earlyPlugins);
+        }
+        if (discoveryIndex.isPersistent()) {
+            discoveryIndex.save();
+            LOGGER.info("Discovery index: " + discoveryIndex.stats());
+        }
         result.warnings().forEach(LOGGER::warn);
 
         List<String> configs = result.configs();
@@ -64,18 +97,40 @@ public final class Main {
             LOGGER.info("  - " + cfg + " (" + result.origins().get(cfg).getFileName() + ")");
         }
 
+        if (!result.noTransformPackages().isEmpty()) {
+            LOGGER.info("Excluding " + result.noTransformPackages().size() + " package(s) from Mixin transformation");
+            classLoader.setNoTransformPackages(result.noTransformPackages());
+        }
+
         System.setProperty("java.util.logging.manager", HyinitLogManager.class.getName());
 
         System.setProperty("mixin.bootstrapService", HyinitMixinBootstrap.class.getName());
         System.setProperty("mixin.service", HyinitMixinService.class.getName());
 
-        MixinBootstrap.init();
-        MixinExtrasBootstrap.init();
+        MixinAuditTrail auditTrail = null;
+        if (MixinAuditTrail.isEnabled()) {
+            auditTrail = MixinAuditTrail.create(result.origins());
+            auditTrail.registerMBean();
+            HyinitMixinService.setAuditTrail(auditTrail);
+            classLoader.setAuditTrail(auditTrail);
+        }
+
+        try (Span span = StartupTrace.begin(StartupTrace.CATEGORY_BOOTSTRAP, "MixinBootstrap.init")) {
+            MixinBootstrap.init();
+        }
+        try (Span span = StartupTrace.begin(StartupTrace.CATEGORY_BOOTSTRAP, "MixinExtrasBootstrap.init")) {
+            MixinExtrasBootstrap.init();
+        }
 
         classLoader.initializeTransformer();
+        openTransformCache(cwd, classLoader, result);
 
         for (String config : configs) {
-            try {
+            try (Span span = StartupTrace.begin(
+                    StartupTrace.CATEGORY_CONFIG,
+                    config,
+                    "origin",
+                    result.origins().get(config).toString())) {
                 Mixins.addConfiguration(config);
             } catch (Throwable t) {
                 throw new RuntimeException(
@@ -86,36 +141,112 @@ public final class Main {
             }
         }
 
-        Mixins.addConfiguration("_hyinit.mixins.json");
-        finishMixinBootstrapping();
+        try (Span span = StartupTrace.begin(StartupTrace.CATEGORY_CONFIG, HYINIT_MIXIN_CONFIG)) {
+            Mixins.addConfiguration(HYINIT_MIXIN_CONFIG);
+        }
+        try (Span span = StartupTrace.begin(StartupTrace.CATEGORY_BOOTSTRAP, "Finish Mixin bootstrapping")) {
+            finishMixinBootstrapping();
+        }
+
+        List<String> allConfigs = new ArrayList<>(configs);
+        allConfigs.add(HYINIT_MIXIN_CONFIG);
+        MixinTargetIndex mixinTargets;
+        try (Span span = StartupTrace.begin(StartupTrace.CATEGORY_BOOTSTRAP, "Build Mixin target index")) {
+            mixinTargets = MixinTargetIndex.build(classLoader, allConfigs);
+        }
+        classLoader.setMixinTargetIndex(mixinTargets);
+        LOGGER.info("Mixin target index: " + mixinTargets.stats());
+        if (MIXIN_TARGET_DEBUG) {
+            mixinTargets.targets().stream().sorted().forEach(target -> LOGGER.info("  - " + target));
+        }
+
+        startPrefetcher(cwd, classLoader);
+        registerShutdownHook(cwd, classLoader);
+        if (auditTrail != null) {
+            auditTrail.summarizeAfterStartup(classLoader, cwd);
+        }
+        classLoader.startStartupMonitor();
 
         LOGGER.info("Starting HytaleServer");
 
         Thread thread = new Thread(() -> {
             try {
-                Class<?> mainClass = classLoader.loadClass(HYTALE_MAIN);
-                MethodHandle mainHandle = MethodHandles.lookup()
-                        .findStatic(mainClass, "main", MethodType.methodType(void.class, String[].class))
-                        .asFixedArity();
-                mainHandle.invoke((Object) serverArgs);
+                MethodHandle mainHandle;
+                try (Span span = StartupTrace.begin(StartupTrace.CATEGORY_BOOTSTRAP, "Load server main class")) {
+                    Class<?> mainClass = classLoader.loadClass(HYTALE_MAIN);
+                    mainHandle = MethodHandles.lookup()
+                            .findStatic(mainClass, "main", MethodType.methodType(void.class, String[].class))
+                            .asFixedArity();
+                }
+                try (Span span = StartupTrace.begin(StartupTrace.CATEGORY_BOOTSTRAP, "Server main")) {
+                    mainHandle.invoke((Object) serverArgs);
+                }
             } catch (Throwable t) {
                 throw SneakyThrow.sneakyThrow(t);
             }
         });
         thread.setContextClassLoader(classLoader);
         thread.start();
+
+        if (AotCache.isTrainingRequested(args)) {
+            AotCache.startTrainingMonitor(classLoader);
+        }
+    }
+
+    private static void openTransformCache(Path cwd, HyinitClassLoader classLoader, ConfigCollector.Result result) {
+        if (!TransformCache.isEnabled()) {
+            return;
+        }
+
+        TransformCache transformCache;
+        try {
+            transformCache = TransformCache.open(cwd, result, classLoader.getCodeSources());
+        } catch (IOException e) {
+            LOGGER.warn("Failed to open the transform cache, continuing without it", e);
+            return;
+        }
+
+        classLoader.setTransformCache(transformCache);
+    }
+
+    private static void startPrefetcher(Path cwd, HyinitClassLoader classLoader) {
+        if (!ClassPrefetcher.isEnabled()) {
+            return;
+        }
+
+        ClassPrefetcher prefetcher = ClassPrefetcher.create(cwd, classLoader);
+        classLoader.setPrefetcher(prefetcher);
+        prefetcher.start();
     }
 
-    private static List<Path> collectClasspathJars(Path serverJar, Path earlyPluginsDir) throws Exception {
-        if (Files.isDirectory(earlyPluginsDir)) {
-            return Files.list(earlyPluginsDir)
-                    .filter(Files::isRegularFile)
-                    .filter(p ->
-                            p.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".jar"))
-                    .sorted()
-                    .toList();
+    private static void registerShutdownHook(Path cwd, HyinitClassLoader classLoader) {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> shutdown(cwd, classLoader), "Hyinit Shutdown"));
+    }
+
+    private static void shutdown(Path cwd, HyinitClassLoader classLoader) {
+        ClassPrefetcher prefetcher = classLoader.getPrefetcher();
+        if (prefetcher != null) {
+            prefetcher.close();
+            LOGGER.info("Class prefetch: " + prefetcher.stats());
+        }
+
+        TransformCache transformCache = classLoader.getTransformCache();
+        if (transformCache != null) {
+            transformCache.close();
+            LOGGER.info("Transform cache: " + transformCache.stats());
+        }
+
+        MixinTargetIndex mixinTargets = classLoader.getMixinTargetIndex();
+        if (mixinTargets != null) {
+            LOGGER.info("Mixin target index: " + mixinTargets.stats());
         }
-        return List.of();
+
+        MixinAuditTrail auditTrail = classLoader.getAuditTrail();
+        if (auditTrail != null) {
+            auditTrail.write(cwd);
+        }
+
+        StartupTrace.write(cwd);
     }
 
     private static List<Path> parseEarlyPluginPaths(String[] args) {
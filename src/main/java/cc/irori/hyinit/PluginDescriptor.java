@@ -0,0 +1,77 @@
+package cc.irori.hyinit;
+
+import cc.irori.hyinit.shared.SourceMetadata;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.jar.JarFile;
+import java.util.zip.ZipFile;
+
+/**
+ * What startup needs from an earlyplugin jar, read with a single open of the jar.
+ *
+ * <p>The Mixin configs and no-transform packages are streamed from {@code manifest.json} (or
+ * taken from the {@link DiscoveryIndex}), and the open {@link JarFile} is handed over to the class
+ * loader, which builds its entry and package index and reads {@code MANIFEST.MF} from it. The jar
+ * is therefore not opened again after discovery.
+ */
+public final class PluginDescriptor {
+
+    private final Path path;
+    private final SourceMetadata metadata;
+    private final JarFile jarFile;
+    private final DiscoveryIndex.JarInfo info;
+    private final String error;
+
+    private PluginDescriptor(
+            Path path, SourceMetadata metadata, JarFile jarFile, DiscoveryIndex.JarInfo info, String error) {
+        this.path = path;
+        this.metadata = metadata;
+        this.jarFile = jarFile;
+        this.info = info;
+        this.error = error;
+    }
+
+    static PluginDescriptor open(Path path, SourceMetadata metadata, DiscoveryIndex index) {
+        JarFile jarFile = null;
+        try {
+            // Opened the way the class loader opens its code sources, so that it can adopt it
+            jarFile = new JarFile(path.toFile(), true, ZipFile.OPEN_READ, Runtime.version());
+            return new PluginDescriptor(path, metadata, jarFile, index.get(path, jarFile), null);
+        } catch (Exception e) {
+            if (jarFile != null) {
+                try {
+                    jarFile.close();
+                } catch (IOException ignored) {
+                }
+            }
+            String error = e.getClass().getSimpleName() + (e.getMessage() != null ? (": " + e.getMessage()) : "");
+            return new PluginDescriptor(path, metadata, null, null, error);
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public SourceMetadata metadata() {
+        return metadata;
+    }
+
+    /**
+     * Returns the open jar, or {@code null} if it could not be opened. Ownership passes to
+     * whoever adds it as a code source.
+     */
+    public JarFile jarFile() {
+        return jarFile;
+    }
+
+    /** Returns what was read from the jar, or {@code null} if it could not be read. */
+    DiscoveryIndex.JarInfo info() {
+        return info;
+    }
+
+    /** Returns why the jar could not be read, or {@code null}. */
+    String error() {
+        return error;
+    }
+}
@@ -0,0 +1,91 @@
+package cc.irori.hyinit;
+
+import cc.irori.hyinit.util.SneakyThrow;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Lists and inspects jars during startup discovery.
+ *
+ * <p>Jars are opened on one virtual thread each, so slow or network-backed disks are waited on
+ * concurrently. Results are always returned in the order of the input, which for directory listings
+ * is sorted by path, so discovery stays deterministic.
+ */
+final class PluginDiscovery {
+
+    // Private constructor to prevent instantiation
+    private PluginDiscovery() {}
+
+    /** Lists the jars directly inside {@code dir}, sorted by path. A missing directory has no jars. */
+    static List<Path> listJars(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.filter(PluginDiscovery::isJar).sorted().toList();
+        }
+    }
+
+    /** Lists the jars of each directory concurrently, returning them in the order of {@code dirs}. */
+    static List<Path> listJars(List<Path> dirs) throws IOException {
+        List<Path> jars = new ArrayList<>();
+        for (List<Path> dirJars : map(dirs, PluginDiscovery::listJars)) {
+            jars.addAll(dirJars);
+        }
+        return jars;
+    }
+
+    /**
+     * Applies {@code function} to every item concurrently and returns the results in the order of
+     * {@code items}. The first failure, in that order, is rethrown once every item has finished.
+     */
+    static <T, R> List<R> map(List<T> items, IOFunction<T, R> function) throws IOException {
+        if (items.size() <= 1) {
+            List<R> results = new ArrayList<>(items.size());
+            for (T item : items) {
+                results.add(function.apply(item));
+            }
+            return results;
+        }
+
+        List<Future<R>> futures = new ArrayList<>(items.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (T item : items) {
+                futures.add(executor.submit(() -> function.apply(item)));
+            }
+        }
+
+        List<R> results = new ArrayList<>(items.size());
+        for (Future<R> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                throw SneakyThrow.sneakyThrow(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted during plugin discovery", e);
+            }
+        }
+        return results;
+    }
+
+    private static boolean isJar(Path path) {
+        return Files.isRegularFile(path)
+                && path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".jar");
+    }
+
+    @FunctionalInterface
+    interface IOFunction<T, R> {
+        R apply(T value) throws IOException;
+    }
+}
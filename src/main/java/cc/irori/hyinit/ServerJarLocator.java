@@ -5,11 +5,9 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
-import java.util.Locale;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.jar.JarFile;
-import java.util.stream.Stream;
 
 public final class ServerJarLocator {
 
@@ -21,6 +19,10 @@ public final class ServerJarLocator {
     private ServerJarLocator() {}
 
     public static Path locate(String[] args) {
+        return locate(args, DiscoveryIndex.disabled());
+    }
+
+    static Path locate(String[] args, DiscoveryIndex index) {
         Objects.requireNonNull(args, "args");
 
         Optional<Path> parsed = parseServerJarArg(args);
@@ -31,11 +33,11 @@ public final class ServerJarLocator {
         Path cwd = Paths.get("").toAbsolutePath().normalize();
 
         Path defaultJar = cwd.resolve(DEFAULT_SERVER_JAR);
-        if (isHytaleServer(defaultJar)) {
+        if (isHytaleServer(defaultJar, index)) {
             return defaultJar;
         }
 
-        Optional<Path> scanned = scanJarCandidates(cwd);
+        Optional<Path> scanned = scanJarCandidates(cwd, index);
         if (scanned.isPresent()) {
             return scanned.get();
         }
@@ -90,25 +92,29 @@ public final class ServerJarLocator {
                 .toArray(String[]::new);
     }
 
-    private static Optional<Path> scanJarCandidates(Path dir) {
-        try (Stream<Path> s = Files.list(dir)) {
-            return s.filter(Files::isRegularFile)
-                    .filter(p ->
-                            p.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".jar"))
-                    .filter(ServerJarLocator::isHytaleServer)
-                    .findFirst();
+    private static Optional<Path> scanJarCandidates(Path dir, DiscoveryIndex index) {
+        try {
+            // Jars are opened concurrently, but the first server jar in path order wins
+            List<Path> candidates = PluginDiscovery.listJars(dir);
+            List<Boolean> matches = PluginDiscovery.map(candidates, jar -> isHytaleServer(jar, index));
+            for (int i = 0; i < candidates.size(); i++) {
+                if (matches.get(i)) {
+                    return Optional.of(candidates.get(i));
+                }
+            }
+            return Optional.empty();
         } catch (IOException e) {
             throw new IllegalArgumentException("Failed to scan directory for server jar: " + dir, e);
         }
     }
 
-    private static boolean isHytaleServer(Path jarPath) {
+    private static boolean isHytaleServer(Path jarPath, DiscoveryIndex index) {
         if (!Files.isRegularFile(jarPath)) {
             return false;
         }
 
-        try (JarFile jar = new JarFile(jarPath.toFile(), false)) {
-            return jar.getJarEntry("manifests.json") != null;
+        try {
+            return index.get(jarPath).serverJar();
         } catch (IOException ignored) {
             return false;
         }
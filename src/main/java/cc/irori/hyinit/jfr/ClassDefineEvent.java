@@ -0,0 +1,32 @@
+package cc.irori.hyinit.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("cc.irori.hyinit.ClassDefine")
+@Label("Class Define")
+@Category({"Hyinit", "Class Loading"})
+@Description("Definition of a class by HyinitClassLoader")
+@StackTrace(false)
+public final class ClassDefineEvent extends jdk.jfr.Event {
+
+    @Label("Class Name")
+    public String className;
+
+    @Label("Code Source")
+    public String codeSource;
+
+    @Label("Early Plugin")
+    public boolean earlyPlugin;
+
+    @Label("Transformed")
+    public boolean transformed;
+
+    @Label("Size")
+    @DataAmount
+    public int size;
+}
@@ -0,0 +1,24 @@
+package cc.irori.hyinit.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("cc.irori.hyinit.ClassFallback")
+@Label("Class Loader Fallback")
+@Category({"Hyinit", "Class Loading"})
+@Description("Delegation of a class that is not in the code sources to the parent or platform class loader")
+@StackTrace(false)
+public final class ClassFallbackEvent extends jdk.jfr.Event {
+
+    @Label("Class Name")
+    public String className;
+
+    @Label("Loader")
+    public String loader;
+
+    @Label("Found")
+    public boolean found;
+}
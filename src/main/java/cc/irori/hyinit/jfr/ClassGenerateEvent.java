@@ -0,0 +1,26 @@
+package cc.irori.hyinit.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("cc.irori.hyinit.ClassGenerate")
+@Label("Synthetic Class Generation")
+@Category({"Hyinit", "Mixin"})
+@Description("Attempt to generate a synthetic class with Mixin for a class without a class file")
+@StackTrace(false)
+public final class ClassGenerateEvent extends jdk.jfr.Event {
+
+    @Label("Class Name")
+    public String className;
+
+    @Label("Generated")
+    public boolean generated;
+
+    @Label("Size")
+    @DataAmount
+    public int size;
+}
@@ -0,0 +1,25 @@
+package cc.irori.hyinit.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("cc.irori.hyinit.ClassLookup")
+@Label("Class Lookup")
+@Category({"Hyinit", "Class Loading"})
+@Description("Lookup of a class that was not loaded by HyinitClassLoader yet")
+@StackTrace(false)
+public final class ClassLookupEvent extends jdk.jfr.Event {
+
+    @Label("Class Name")
+    public String className;
+
+    @Label("Found")
+    public boolean found;
+
+    @Label("Cached Miss")
+    @Description("The class was known to be missing and the lookup was answered from the negative cache")
+    public boolean cachedMiss;
+}
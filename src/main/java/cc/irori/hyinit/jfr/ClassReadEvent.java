@@ -0,0 +1,29 @@
+package cc.irori.hyinit.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("cc.irori.hyinit.ClassRead")
+@Label("Class Read")
+@Category({"Hyinit", "Class Loading"})
+@Description("Read of the raw bytes of a class file")
+@StackTrace(false)
+public final class ClassReadEvent extends jdk.jfr.Event {
+
+    @Label("Class Name")
+    public String className;
+
+    @Label("Code Source")
+    public String codeSource;
+
+    @Label("Early Plugin")
+    public boolean earlyPlugin;
+
+    @Label("Size")
+    @DataAmount
+    public int size;
+}
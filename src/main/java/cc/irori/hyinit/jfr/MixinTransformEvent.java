@@ -0,0 +1,37 @@
+package cc.irori.hyinit.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("cc.irori.hyinit.MixinTransform")
+@Label("Mixin Transform")
+@Category({"Hyinit", "Mixin"})
+@Description("Transformation of a class by the Mixin transformer")
+@StackTrace(false)
+public final class MixinTransformEvent extends jdk.jfr.Event {
+
+    @Label("Class Name")
+    public String className;
+
+    @Label("Code Source")
+    public String codeSource;
+
+    @Label("Early Plugin")
+    public boolean earlyPlugin;
+
+    @Label("Original Size")
+    @DataAmount
+    public int originalSize;
+
+    @Label("Transformed Size")
+    @DataAmount
+    public int transformedSize;
+
+    @Label("Cached")
+    @Description("The transformed bytes were taken from the transform cache")
+    public boolean cached;
+}
@@ -0,0 +1,71 @@
+package cc.irori.hyinit.mixin;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Per-thread reusable buffer for reading class files.
+ *
+ * <p>Defining a class can recursively load its supertypes on the same thread, so a buffer that is
+ * still in use is never handed out twice; nested reads get a temporary buffer instead.
+ */
+final class ClassBuffer {
+
+    private static final int INITIAL_CAPACITY = 32 * 1024;
+    private static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+
+    private static final ThreadLocal<ClassBuffer> BUFFERS = ThreadLocal.withInitial(ClassBuffer::new);
+
+    private byte[] array = new byte[INITIAL_CAPACITY];
+    private boolean inUse;
+
+    private ClassBuffer() {}
+
+    static ClassBuffer acquire() {
+        ClassBuffer buffer = BUFFERS.get();
+        if (buffer.inUse) {
+            buffer = new ClassBuffer();
+        }
+
+        buffer.inUse = true;
+        return buffer;
+    }
+
+    void release() {
+        inUse = false;
+        if (array.length > MAX_RETAINED_CAPACITY) {
+            // Do not pin the memory of an unusually large class for the lifetime of the thread
+            array = new byte[INITIAL_CAPACITY];
+        }
+    }
+
+    /**
+     * Reads the remaining contents of the stream. The returned buffer is only valid until this
+     * buffer is released or read into again.
+     */
+    ByteBuffer read(InputStream in) throws IOException {
+        // Jar entry streams report the remaining uncompressed size
+        int avail = in.available();
+        if (avail + 1 > array.length) {
+            array = new byte[avail + 1];
+        }
+
+        int length = 0;
+        int n;
+        while ((n = in.read(array, length, array.length - length)) > 0) {
+            length += n;
+            if (length == array.length) {
+                array = Arrays.copyOf(array, array.length * 2);
+            }
+        }
+
+        return ByteBuffer.wrap(array, 0, length);
+    }
+
+    byte[] readAllBytes(InputStream in) throws IOException {
+        ByteBuffer buffer = read(in);
+        return Arrays.copyOf(buffer.array(), buffer.limit());
+    }
+}
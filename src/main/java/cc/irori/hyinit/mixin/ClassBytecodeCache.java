@@ -0,0 +1,165 @@
+package cc.irori.hyinit.mixin;
+
+import java.lang.ref.SoftReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.objectweb.asm.tree.ClassNode;
+
+/**
+ * Class files of {@link HyinitClassLoader} that were read before their class is defined, so that
+ * each class file is read from its jar once.
+ *
+ * <p>Mixin reads targets, their supertypes and the mixins themselves through the bytecode provider
+ * while preparing configs and applying mixins, and the loader then reads the targets again to
+ * define them. The first read keeps the raw bytes here, later reads are answered from them, and
+ * defining the class consumes the entry.
+ *
+ * <p>The second level holds {@link ClassNode}s parsed ahead of time, keyed by class name and
+ * reader flags. Mixin modifies the nodes it is given, so a node is handed out at most once and
+ * requests after that parse the cached bytes again. Nodes are softly referenced, and both levels
+ * are bounded like the other caches of the loader: they are cleared when they grow too large.
+ * Only classes of the loader's own code sources are cached, as those cannot change during a run.
+ *
+ * <p>Class files that were read but whose class is never defined here, such as mixin classes and
+ * supertypes resolved by another loader, would otherwise stay cached for the lifetime of the
+ * server. The cache is therefore {@linkplain #release() released} once startup has settled, and
+ * caches nothing after that.
+ */
+final class ClassBytecodeCache {
+
+    private static final long MAX_BYTES = 64L * 1024 * 1024;
+    private static final int MAX_NODES = 1024;
+
+    private final Map<String, Entry> bytes = new ConcurrentHashMap<>();
+    private final Map<String, CachedNode> nodes = new ConcurrentHashMap<>();
+    private final AtomicLong size = new AtomicLong();
+    private volatile boolean released;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder nodeHits = new LongAdder();
+
+    /**
+     * Returns the bytes of the class without consuming them, or {@code null} if they are not
+     * cached.
+     */
+    byte[] get(String name) {
+        Entry cached = bytes.get(name);
+        if (cached == null) {
+            misses.increment();
+            return null;
+        }
+
+        countHit(cached);
+        return cached.bytes();
+    }
+
+    void put(String name, byte[] classBytes) {
+        if (released) {
+            return;
+        }
+
+        if (size.get() + classBytes.length > MAX_BYTES) {
+            // Read but never defined, e.g. supertypes from the parent class path or unused mixins
+            clear();
+        }
+
+        Entry previous = bytes.put(name, new Entry(classBytes, new AtomicBoolean()));
+        size.addAndGet(classBytes.length - (previous != null ? previous.bytes().length : 0));
+    }
+
+    /**
+     * Removes the bytes of a class that is about to be defined, together with any node parsed from
+     * them, and returns the bytes, or {@code null} if they are not cached.
+     */
+    byte[] take(String name) {
+        if (bytes.isEmpty()) {
+            return null;
+        }
+
+        nodes.remove(name);
+        Entry cached = bytes.remove(name);
+        if (cached == null) {
+            return null;
+        }
+
+        size.addAndGet(-cached.bytes().length);
+        countHit(cached);
+        return cached.bytes();
+    }
+
+    /**
+     * Returns the node parsed for the class with the given reader flags and removes it, or {@code
+     * null} if there is none.
+     */
+    ClassNode takeNode(String name, int readerFlags) {
+        if (nodes.isEmpty()) {
+            return null;
+        }
+
+        CachedNode cached = nodes.get(name);
+        if (cached == null || cached.readerFlags() != readerFlags || !nodes.remove(name, cached)) {
+            return null;
+        }
+
+        ClassNode node = cached.node().get();
+        if (node != null) {
+            nodeHits.increment();
+        }
+        return node;
+    }
+
+    void putNode(String name, int readerFlags, ClassNode node) {
+        if (released) {
+            return;
+        }
+
+        if (nodes.size() >= MAX_NODES) {
+            nodes.clear();
+        }
+
+        nodes.put(name, new CachedNode(readerFlags, new SoftReference<>(node)));
+    }
+
+    void clear() {
+        bytes.clear();
+        nodes.clear();
+        size.set(0);
+    }
+
+    /** Drops every entry and stops caching, for once startup has settled. */
+    void release() {
+        released = true;
+        clear();
+    }
+
+    /** Number of class files served from the cache, each counted once however often it was served. */
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    long nodeHits() {
+        return nodeHits.sum();
+    }
+
+    int size() {
+        return bytes.size();
+    }
+
+    private void countHit(Entry entry) {
+        if (entry.served().compareAndSet(false, true)) {
+            hits.increment();
+        }
+    }
+
+    private record Entry(byte[] bytes, AtomicBoolean served) {}
+
+    private record CachedNode(int readerFlags, SoftReference<ClassNode> node) {}
+}
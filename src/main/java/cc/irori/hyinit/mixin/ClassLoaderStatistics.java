@@ -0,0 +1,180 @@
+package cc.irori.hyinit.mixin;
+
+import cc.irori.hyinit.shared.PluginPriorityCache;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of {@link HyinitClassLoader}, exposed over JMX through {@link HyinitClassLoaderMXBean}.
+ */
+final class ClassLoaderStatistics implements HyinitClassLoaderMXBean {
+
+    private static final String NO_CODE_SOURCE = "<none>";
+
+    private final HyinitClassLoader classLoader;
+
+    private final Map<String, LongAdder> definedByCodeSource = new ConcurrentHashMap<>();
+    private final LongAdder defined = new LongAdder();
+    private final LongAdder transformed = new LongAdder();
+    private final LongAdder passthrough = new LongAdder();
+    private final LongAdder transformNanos = new LongAdder();
+    private final LongAdder resourceHits = new LongAdder();
+    private final LongAdder generateSkips = new LongAdder();
+    private final LongAdder resourceMisses = new LongAdder();
+
+    ClassLoaderStatistics(HyinitClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    void recordDefine(Path codeSource, boolean transformed) {
+        String key = codeSource != null ? codeSource.toString() : NO_CODE_SOURCE;
+        definedByCodeSource.computeIfAbsent(key, k -> new LongAdder()).increment();
+        defined.increment();
+        (transformed ? this.transformed : passthrough).increment();
+    }
+
+    void recordTransform(long nanos) {
+        transformNanos.add(nanos);
+    }
+
+    void recordGenerateSkip() {
+        generateSkips.increment();
+    }
+
+    void recordResourceLookup(boolean found) {
+        (found ? resourceHits : resourceMisses).increment();
+    }
+
+    @Override
+    public long getDefinedClasses() {
+        return defined.sum();
+    }
+
+    @Override
+    public Map<String, Long> getDefinedClassesByCodeSource() {
+        Map<String, Long> result = new TreeMap<>();
+        definedByCodeSource.forEach((codeSource, count) -> result.put(codeSource, count.sum()));
+        return result;
+    }
+
+    @Override
+    public long getTransformedClasses() {
+        return transformed.sum();
+    }
+
+    @Override
+    public long getPassthroughClasses() {
+        return passthrough.sum();
+    }
+
+    @Override
+    public long getTransformTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(transformNanos.sum());
+    }
+
+    @Override
+    public long getSkippedClassGenerations() {
+        return generateSkips.sum();
+    }
+
+    @Override
+    public long getResourceLookupHits() {
+        return resourceHits.sum();
+    }
+
+    @Override
+    public long getResourceLookupMisses() {
+        return resourceMisses.sum();
+    }
+
+    @Override
+    public long getResourceCacheHits() {
+        return classLoader.getResourceCache().hits();
+    }
+
+    @Override
+    public long getResourceCacheMisses() {
+        return classLoader.getResourceCache().misses();
+    }
+
+    @Override
+    public double getResourceCacheHitRate() {
+        long hits = getResourceCacheHits();
+        long total = hits + getResourceCacheMisses();
+        return total > 0 ? (double) hits / total : 0;
+    }
+
+    @Override
+    public int getResourceCacheEntries() {
+        return classLoader.getResourceCache().size();
+    }
+
+    @Override
+    public long getBytecodeCacheHits() {
+        return classLoader.getBytecodeCache().hits();
+    }
+
+    @Override
+    public long getBytecodeCacheMisses() {
+        return classLoader.getBytecodeCache().misses();
+    }
+
+    @Override
+    public int getBytecodeCacheEntries() {
+        return classLoader.getBytecodeCache().size();
+    }
+
+    @Override
+    public long getHierarchyReadAheadClasses() {
+        return classLoader.getHierarchyReadAhead().read();
+    }
+
+    @Override
+    public long getHierarchyReadAheadHits() {
+        return classLoader.getBytecodeCache().nodeHits();
+    }
+
+    @Override
+    public long getNegativeLookupHits() {
+        return classLoader.getNegativeLookupCache().hits();
+    }
+
+    @Override
+    public int getNegativeLookupEntries() {
+        return classLoader.getNegativeLookupCache().size();
+    }
+
+    @Override
+    public long getPluginPriorityCacheHits() {
+        return PluginPriorityCache.hits();
+    }
+
+    @Override
+    public long getPluginPriorityCacheMisses() {
+        return PluginPriorityCache.misses();
+    }
+
+    @Override
+    public long getPluginPriorityOverlaps() {
+        return PluginPriorityCache.overlaps();
+    }
+
+    @Override
+    public int getMetadataCacheSize() {
+        return classLoader.getMetadataCacheSize();
+    }
+
+    @Override
+    public int getParentSourcedClasses() {
+        return classLoader.getParentSourcedClassCount();
+    }
+
+    @Override
+    public int getCodeSources() {
+        return classLoader.getCodeSources().size();
+    }
+}
@@ -0,0 +1,262 @@
+package cc.irori.hyinit.mixin;
+
+import cc.irori.hyinit.HyinitLogger;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import org.spongepowered.asm.mixin.Mixins;
+
+/**
+ * Reads and transforms classes ahead of the threads that load them.
+ *
+ * <p>Every run records the order in which {@link HyinitClassLoader} defines classes. On the next
+ * run, worker threads replay that trace and prepare the post-Mixin bytes of upcoming classes, at
+ * most a configurable number of classes ahead of the loader. Each class is claimed exactly once,
+ * either by a worker or by the loading thread, so no class is transformed twice; a loading thread
+ * that finds its class claimed by a worker waits for the worker's result.
+ */
+public final class ClassPrefetcher {
+
+    public static final String ENABLED_PROPERTY = "hyinit.prefetch";
+    public static final String TRACE_PROPERTY = "hyinit.prefetch.trace";
+    public static final String THREADS_PROPERTY = "hyinit.prefetch.threads";
+    public static final String DEPTH_PROPERTY = "hyinit.prefetch.depth";
+    public static final String TARGETS_PROPERTY = "hyinit.prefetch.targets";
+
+    private static final String DEFAULT_TRACE = ".hyinit/class-load.trace";
+    private static final int DEFAULT_DEPTH = 1024;
+    private static final int MAX_TRACE_LENGTH = 64 * 1024;
+
+    private static final CompletableFuture<byte[]> CONSUMED = CompletableFuture.completedFuture(null);
+
+    private final HyinitClassLoader classLoader;
+    private final Path traceFile;
+    private final List<String> trace;
+    private final int threads;
+    private final int depth;
+    private final boolean pretransformTargets;
+
+    private final Map<String, CompletableFuture<byte[]>> claims = new ConcurrentHashMap<>();
+    private final Queue<String> recorded = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger loaded = new AtomicInteger();
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+    private volatile boolean stopped = false;
+
+    private final LongAdder prefetched = new LongAdder();
+    private final LongAdder ready = new LongAdder();
+    private final LongAdder waited = new LongAdder();
+
+    private ClassPrefetcher(
+            HyinitClassLoader classLoader,
+            Path traceFile,
+            List<String> trace,
+            int threads,
+            int depth,
+            boolean pretransformTargets) {
+        this.classLoader = classLoader;
+        this.traceFile = traceFile;
+        this.trace = trace;
+        this.threads = threads;
+        this.depth = depth;
+        this.pretransformTargets = pretransformTargets;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    public static ClassPrefetcher create(Path workingDir, HyinitClassLoader classLoader) {
+        Path traceFile = workingDir.resolve(System.getProperty(TRACE_PROPERTY, DEFAULT_TRACE));
+
+        List<String> trace = List.of();
+        if (Files.isRegularFile(traceFile)) {
+            try {
+                trace = Files.readAllLines(traceFile, StandardCharsets.UTF_8).stream()
+                        .filter(line -> !line.isBlank())
+                        .toList();
+            } catch (IOException e) {
+                HyinitLogger.get().warn("Failed to read class load trace " + traceFile, e);
+            }
+        }
+
+        int defaultThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new ClassPrefetcher(
+                classLoader,
+                traceFile,
+                trace,
+                Math.max(1, Integer.getInteger(THREADS_PROPERTY, defaultThreads)),
+                Math.max(1, Integer.getInteger(DEPTH_PROPERTY, DEFAULT_DEPTH)),
+                Boolean.getBoolean(TARGETS_PROPERTY));
+    }
+
+    public void start() {
+        if (trace.isEmpty() && !pretransformTargets) {
+            HyinitLogger.get().info("No class load trace found, recording one for the next start");
+            return;
+        }
+
+        HyinitLogger.get()
+                .info(String.format("Prefetching %d class(es) with %d thread(s)", trace.size(), threads));
+
+        activeWorkers.set(threads);
+        for (int i = 0; i < threads; i++) {
+            Thread thread = new Thread(this::runWorker, "Hyinit Prefetch Worker #" + i);
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            thread.start();
+        }
+    }
+
+    /**
+     * Stops the workers and writes the trace recorded during this run.
+     */
+    public void close() {
+        stopped = true;
+
+        List<String> lines = new ArrayList<>(Math.min(recorded.size(), MAX_TRACE_LENGTH));
+        for (String name : recorded) {
+            if (lines.size() >= MAX_TRACE_LENGTH) break;
+            lines.add(name);
+        }
+
+        try {
+            Files.createDirectories(traceFile.toAbsolutePath().getParent());
+            Path temp = traceFile.resolveSibling(traceFile.getFileName() + ".tmp");
+            Files.write(temp, lines, StandardCharsets.UTF_8);
+            try {
+                Files.move(temp, traceFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, traceFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            HyinitLogger.get().warn("Failed to write class load trace " + traceFile, e);
+        }
+    }
+
+    public Stats stats() {
+        long used = ready.sum() + waited.sum();
+        return new Stats(trace.size(), prefetched.sum(), ready.sum(), waited.sum(), prefetched.sum() - used);
+    }
+
+    void recordLoad(String name) {
+        loaded.incrementAndGet();
+        recorded.add(name);
+    }
+
+    /**
+     * Returns the post-Mixin bytes of a class, taking them from a worker if one already claimed
+     * the class, or producing them on the calling thread otherwise.
+     */
+    byte[] getClassBytes(String name, Supplier<byte[]> loader) {
+        CompletableFuture<byte[]> own = new CompletableFuture<>();
+        CompletableFuture<byte[]> existing = claims.putIfAbsent(name, own);
+
+        if (existing == null || existing == CONSUMED) {
+            try {
+                byte[] bytes = loader.get();
+                own.complete(bytes);
+                return bytes;
+            } catch (Throwable t) {
+                own.completeExceptionally(t);
+                throw t;
+            } finally {
+                claims.replace(name, own, CONSUMED);
+            }
+        }
+
+        if (existing.isDone()) {
+            ready.increment();
+        } else {
+            waited.increment();
+        }
+
+        try {
+            return existing.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            if (e.getCause() instanceof Error error) throw error;
+            throw e;
+        } finally {
+            claims.replace(name, existing, CONSUMED);
+        }
+    }
+
+    private void runWorker() {
+        try {
+            int index;
+            while (!stopped && (index = next.getAndIncrement()) < trace.size()) {
+                // Stay at most `depth` classes ahead of the loading threads
+                while (!stopped && index > loaded.get() + depth) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                }
+
+                prefetch(trace.get(index));
+            }
+        } finally {
+            if (activeWorkers.decrementAndGet() == 0 && pretransformTargets && !stopped) {
+                pretransformTargets();
+            }
+        }
+    }
+
+    private void pretransformTargets() {
+        int count = 0;
+        for (var config : Mixins.getConfigs()) {
+            for (String target : config.getConfig().getTargets()) {
+                if (stopped) return;
+                if (prefetch(target.replace('/', '.'))) {
+                    count++;
+                }
+            }
+        }
+        HyinitLogger.get().info(String.format("Pre-transformed %d Mixin target(s)", count));
+    }
+
+    private boolean prefetch(String name) {
+        if (!classLoader.isPrefetchable(name)) {
+            return false;
+        }
+
+        CompletableFuture<byte[]> own = new CompletableFuture<>();
+        if (claims.putIfAbsent(name, own) != null) {
+            return false;
+        }
+
+        try {
+            own.complete(classLoader.getPrefetchClassBytes(name));
+            prefetched.increment();
+            return true;
+        } catch (Throwable t) {
+            // Reported again by the loading thread, which gets the same failure
+            own.completeExceptionally(t);
+            return false;
+        }
+    }
+
+    public record Stats(int traced, long prefetched, long ready, long waited, long unused) {
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "%d traced, %d prefetched, %d load(s) served ready, %d waited for a worker, %d unused",
+                    traced, prefetched, ready, waited, unused);
+        }
+    }
+}
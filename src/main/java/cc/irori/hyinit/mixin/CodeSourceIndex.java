@@ -0,0 +1,351 @@
+package cc.irori.hyinit.mixin;
+
+import cc.irori.hyinit.util.UrlUtil;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+import java.util.zip.ZipFile;
+
+/**
+ * Resource lookup over the code sources of {@link HyinitClassLoader}.
+ *
+ * <p>Each code source is scanned once when it is added, building a map from resource package to
+ * the code sources containing it. A lookup then only probes the code sources that actually have
+ * the package, instead of every jar in the class path. Code sources are kept in the order they
+ * were added, which matches the search order of {@link java.net.URLClassLoader}.
+ *
+ * <p>All resource names are also put into a Bloom filter, so names that are in none of the code
+ * sources, such as optional classes probed by mods, are rejected without touching any jar.
+ */
+final class CodeSourceIndex {
+
+    private static final Source[] NO_SOURCES = new Source[0];
+
+    private static final int INITIAL_NAME_CAPACITY = 64 * 1024;
+    private static final double NAME_FALSE_POSITIVE_RATE = 0.01;
+
+    private final Map<String, Source[]> packages = new ConcurrentHashMap<>();
+    private final List<Source> sources = new ArrayList<>();
+    private final Map<Path, Source> sourcesByPath = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter<CharSequence> names = newNameFilter(INITIAL_NAME_CAPACITY);
+    private long nameCapacity = INITIAL_NAME_CAPACITY;
+    private long nameCount = 0;
+
+    synchronized void add(Path path) throws IOException {
+        add(path, null);
+    }
+
+    /**
+     * Adds a code source, adopting {@code jarFile} instead of opening the jar again when it is
+     * given.
+     */
+    synchronized void add(Path path, JarFile jarFile) throws IOException {
+        Source source;
+        if (jarFile != null) {
+            source = new JarSource(path, jarFile);
+        } else {
+            source = Files.isDirectory(path) ? new DirectorySource(path) : new JarSource(path);
+        }
+        List<String> sourceNames = source.names();
+
+        Set<String> sourcePackages = new HashSet<>();
+        for (String name : sourceNames) {
+            sourcePackages.add(packageOf(name));
+        }
+
+        if (nameCount + sourceNames.size() > nameCapacity) {
+            // Keep the false positive rate in check by rebuilding the filter with more room
+            nameCapacity = Math.max(nameCapacity * 2, nameCount + sourceNames.size());
+            BloomFilter<CharSequence> rebuilt = newNameFilter(nameCapacity);
+            for (Source existing : sources) {
+                existing.names().forEach(rebuilt::put);
+            }
+            sourceNames.forEach(rebuilt::put);
+            names = rebuilt;
+        } else {
+            sourceNames.forEach(names::put);
+        }
+        nameCount += sourceNames.size();
+
+        for (String packageName : sourcePackages) {
+            packages.merge(packageName, new Source[] {source}, CodeSourceIndex::append);
+        }
+        sources.add(source);
+        sourcesByPath.putIfAbsent(path, source);
+    }
+
+    /** Returns the packages of the classes in a code source, e.g. {@code com/example}. */
+    Set<String> getClassPackages(Path path) throws IOException {
+        Source source = sourcesByPath.get(path);
+        if (source == null) {
+            return Set.of();
+        }
+
+        Set<String> classPackages = new HashSet<>();
+        for (String name : source.names()) {
+            if (name.endsWith(".class")) {
+                classPackages.add(packageOf(name));
+            }
+        }
+        return classPackages;
+    }
+
+    /** Returns the open jar of a code source, or {@code null} if it is not an indexed jar. */
+    JarFile getJarFile(Path path) {
+        return sourcesByPath.get(path) instanceof JarSource jarSource ? jarSource.jarFile() : null;
+    }
+
+    /**
+     * Returns {@code false} if none of the code sources contain the resource. A return value of
+     * {@code true} may be a false positive.
+     */
+    boolean mightContain(String name) {
+        return names.mightContain(name);
+    }
+
+    Source find(String name) {
+        if (!mightContain(name)) {
+            return null;
+        }
+
+        for (Source source : candidates(name)) {
+            if (source.contains(name)) {
+                return source;
+            }
+        }
+        return null;
+    }
+
+    URL findResource(String name) {
+        Source source = find(name);
+        return source != null ? source.url(name) : null;
+    }
+
+    List<URL> findResources(String name) {
+        List<URL> urls = new ArrayList<>(1);
+        if (!mightContain(name)) {
+            return urls;
+        }
+
+        for (Source source : candidates(name)) {
+            if (source.contains(name)) {
+                urls.add(source.url(name));
+            }
+        }
+        return urls;
+    }
+
+    InputStream getInputStream(String name) throws IOException {
+        Source source = find(name);
+        return source != null ? source.openStream(name) : null;
+    }
+
+    /**
+     * Lists the binary names of all classes in a package and its subpackages.
+     */
+    synchronized Set<String> listClasses(String packageName) throws IOException {
+        String prefix = packageName.replace('.', '/') + "/";
+        Set<String> classes = new LinkedHashSet<>();
+
+        for (Source source : sources) {
+            for (String name : source.names()) {
+                if (name.startsWith(prefix) && name.endsWith(".class")) {
+                    classes.add(name.substring(0, name.length() - ".class".length())
+                            .replace('/', '.'));
+                }
+            }
+        }
+        return classes;
+    }
+
+    boolean hasPackage(String packageName) {
+        return packages.containsKey(packageName);
+    }
+
+    private Source[] candidates(String name) {
+        return packages.getOrDefault(packageOf(name), NO_SOURCES);
+    }
+
+    /**
+     * Returns the package part of a resource name, e.g. {@code com/example} for
+     * {@code com/example/Foo.class} and an empty string for resources at the root.
+     */
+    static String packageOf(String name) {
+        int end = name.length();
+        if (end > 0 && name.charAt(end - 1) == '/') {
+            end--;
+        }
+
+        int pos = name.lastIndexOf('/', end - 1);
+        return pos < 0 ? "" : name.substring(0, pos);
+    }
+
+    private static BloomFilter<CharSequence> newNameFilter(long capacity) {
+        return BloomFilter.create(Funnels.unencodedCharsFunnel(), capacity, NAME_FALSE_POSITIVE_RATE);
+    }
+
+    private static Source[] append(Source[] existing, Source[] added) {
+        Source[] merged = Arrays.copyOf(existing, existing.length + added.length);
+        System.arraycopy(added, 0, merged, existing.length, added.length);
+        return merged;
+    }
+
+    private static String encodePath(String name) {
+        try {
+            return new URI(null, null, name, null).getRawPath();
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Invalid resource name: " + name, e);
+        }
+    }
+
+    abstract static class Source {
+
+        private final Path path;
+
+        Source(Path path) {
+            this.path = path;
+        }
+
+        Path path() {
+            return path;
+        }
+
+        /**
+         * Lists the resource names of this code source. Directories are listed both with and
+         * without a trailing slash, as both forms can be looked up.
+         */
+        abstract List<String> names() throws IOException;
+
+        abstract boolean contains(String name);
+
+        abstract URL url(String name);
+
+        abstract InputStream openStream(String name) throws IOException;
+    }
+
+    static final class JarSource extends Source {
+
+        private final JarFile jarFile;
+        private final String baseUrl;
+
+        JarSource(Path path) throws IOException {
+            this(path, new JarFile(path.toFile(), true, ZipFile.OPEN_READ, Runtime.version()));
+        }
+
+        JarSource(Path path, JarFile jarFile) {
+            super(path);
+            this.jarFile = jarFile;
+            baseUrl = "jar:" + UrlUtil.asUrl(path) + "!/";
+        }
+
+        JarFile jarFile() {
+            return jarFile;
+        }
+
+        @Override
+        List<String> names() {
+            List<String> names = new ArrayList<>(jarFile.size());
+            try (Stream<JarEntry> entries = jarFile.versionedStream()) {
+                entries.forEach(entry -> {
+                    String name = entry.getName();
+                    names.add(name);
+                    if (entry.isDirectory()) {
+                        names.add(name.substring(0, name.length() - 1));
+                    }
+                });
+            }
+            return names;
+        }
+
+        @Override
+        boolean contains(String name) {
+            return jarFile.getJarEntry(name) != null;
+        }
+
+        @Override
+        URL url(String name) {
+            try {
+                return URI.create(baseUrl + encodePath(name)).toURL();
+            } catch (MalformedURLException e) {
+                throw new IllegalArgumentException("Invalid resource name: " + name, e);
+            }
+        }
+
+        @Override
+        InputStream openStream(String name) throws IOException {
+            JarEntry entry = jarFile.getJarEntry(name);
+            return entry != null ? jarFile.getInputStream(entry) : null;
+        }
+    }
+
+    static final class DirectorySource extends Source {
+
+        DirectorySource(Path path) {
+            super(path);
+        }
+
+        @Override
+        List<String> names() throws IOException {
+            List<String> names = new ArrayList<>();
+            try (Stream<Path> s = Files.walk(path())) {
+                s.forEach(file -> {
+                    String relative = path().relativize(file)
+                            .toString()
+                            .replace(file.getFileSystem().getSeparator(), "/");
+                    if (!relative.isEmpty()) {
+                        names.add(relative);
+                        if (Files.isDirectory(file)) {
+                            names.add(relative + "/");
+                        }
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return names;
+        }
+
+        @Override
+        boolean contains(String name) {
+            Path file = resolve(name);
+            return file != null && Files.exists(file);
+        }
+
+        @Override
+        URL url(String name) {
+            return UrlUtil.asUrl(resolve(name));
+        }
+
+        @Override
+        InputStream openStream(String name) throws IOException {
+            Path file = resolve(name);
+            return file != null && Files.isRegularFile(file) ? Files.newInputStream(file) : null;
+        }
+
+        private Path resolve(String name) {
+            Path file = path().resolve(name).normalize();
+            // Do not let names such as "../foo" escape the code source
+            return file.startsWith(path()) ? file : null;
+        }
+    }
+}
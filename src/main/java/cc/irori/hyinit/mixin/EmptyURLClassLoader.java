@@ -1,19 +1,64 @@
 package cc.irori.hyinit.mixin;
 
+import cc.irori.hyinit.HyinitLogger;
+import cc.irori.hyinit.util.UrlUtil;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.jar.JarFile;
 
 final class EmptyURLClassLoader extends URLClassLoader {
 
+    private final CodeSourceIndex index = new CodeSourceIndex();
+
     EmptyURLClassLoader(URL[] urls) {
         super(urls, new EmptyClassLoader());
     }
 
     @Override
     public void addURL(URL url) {
+        addURL(url, null);
+    }
+
+    /**
+     * Adds a code source, adopting {@code jarFile} if it was already opened for it.
+     */
+    void addURL(URL url, JarFile jarFile) {
+        try {
+            index.add(UrlUtil.asPath(url), jarFile);
+        } catch (IOException e) {
+            // URLClassLoader silently ignores unreadable jars, keep doing the same
+            HyinitLogger.get().warn("Failed to index code source " + url, e);
+        }
         super.addURL(url);
     }
 
+    CodeSourceIndex getIndex() {
+        return index;
+    }
+
+    @Override
+    public URL findResource(String name) {
+        return index.findResource(name);
+    }
+
+    @Override
+    public Enumeration<URL> findResources(String name) throws IOException {
+        return Collections.enumeration(index.findResources(name));
+    }
+
+    @Override
+    public InputStream getResourceAsStream(String name) {
+        try {
+            return index.getInputStream(name);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
     static {
         registerAsParallelCapable();
     }
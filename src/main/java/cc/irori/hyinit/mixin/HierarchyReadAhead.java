@@ -0,0 +1,94 @@
+package cc.irori.hyinit.mixin;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+
+/**
+ * Reads and parses the supertypes of a class before it enters the Mixin transformer.
+ *
+ * <p>Mixin applies mixins under a global lock, and resolves the hierarchy of the target through
+ * {@code ClassInfo} while holding it, reading and parsing every supertype it has not seen before.
+ * Doing that beforehand, on the thread that is about to transform, and leaving the results in the
+ * {@link ClassBytecodeCache} moves the work out of the section that every loading thread has to
+ * pass one at a time. {@code ClassInfo} itself is not thread-safe and is never touched here.
+ *
+ * <p>Each supertype is read ahead at most once, since {@code ClassInfo} caches it for the rest of
+ * the run after the first lookup.
+ */
+final class HierarchyReadAhead {
+
+    private static final int MAX_VISITED = 64 * 1024;
+    private static final int MAX_PER_CLASS = 32;
+
+    // ClassInfo asks for nodes without any reader flags
+    private static final int READER_FLAGS = 0;
+
+    private final ClassBytecodeCache cache;
+    private final Set<String> visited = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder read = new LongAdder();
+
+    HierarchyReadAhead(ClassBytecodeCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Reads and parses the supertypes of the given class that were not read ahead before.
+     *
+     * @param reader returns the raw bytes of a class by its binary name, or {@code null}, and is
+     *     expected to leave them in the cache
+     */
+    void readAhead(byte[] classBytes, Function<String, byte[]> reader) {
+        if (visited.size() >= MAX_VISITED) {
+            visited.clear();
+        }
+
+        Queue<byte[]> queue = new ArrayDeque<>();
+        queue.add(classBytes);
+        int count = 0;
+
+        while (!queue.isEmpty() && count < MAX_PER_CLASS) {
+            ClassReader classReader = new ClassReader(queue.remove());
+
+            String superName = classReader.getSuperName();
+            if (superName != null && visit(superName, reader, queue)) {
+                count++;
+            }
+            for (String interfaceName : classReader.getInterfaces()) {
+                if (visit(interfaceName, reader, queue)) {
+                    count++;
+                }
+            }
+        }
+    }
+
+    private boolean visit(String internalName, Function<String, byte[]> reader, Queue<byte[]> queue) {
+        String name = internalName.replace('/', '.');
+        if (!visited.add(name)) {
+            return false;
+        }
+
+        byte[] bytes = reader.apply(name);
+        if (bytes == null) {
+            return false;
+        }
+
+        ClassNode node = new ClassNode();
+        new ClassReader(bytes).accept(node, READER_FLAGS);
+        cache.putNode(name, READER_FLAGS, node);
+
+        queue.add(bytes);
+        read.increment();
+        return true;
+    }
+
+    long read() {
+        return read.sum();
+    }
+}
@@ -1,20 +1,29 @@
 package cc.irori.hyinit.mixin;
 
 import cc.irori.hyinit.HyinitLogger;
+import cc.irori.hyinit.jfr.ClassDefineEvent;
+import cc.irori.hyinit.jfr.ClassFallbackEvent;
+import cc.irori.hyinit.jfr.ClassGenerateEvent;
+import cc.irori.hyinit.jfr.ClassLookupEvent;
+import cc.irori.hyinit.jfr.ClassReadEvent;
+import cc.irori.hyinit.jfr.MixinTransformEvent;
+import cc.irori.hyinit.shared.PluginPriorityCache;
 import cc.irori.hyinit.shared.SourceMetaStore;
 import cc.irori.hyinit.shared.SourceMetadata;
+import cc.irori.hyinit.trace.StartupTrace;
 import cc.irori.hyinit.util.LoaderUtil;
 import cc.irori.hyinit.util.ManifestUtil;
 import cc.irori.hyinit.util.UrlConversionException;
 import cc.irori.hyinit.util.UrlUtil;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
 import java.net.JarURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystemAlreadyExistsException;
 import java.nio.file.FileSystemNotFoundException;
@@ -24,23 +33,45 @@ import java.nio.file.Path;
 import java.security.CodeSource;
 import java.security.SecureClassLoader;
 import java.security.cert.Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
 import java.util.jar.Manifest;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import org.objectweb.asm.ClassReader;
 import org.spongepowered.asm.mixin.MixinEnvironment;
 import org.spongepowered.asm.mixin.transformer.IMixinTransformer;
+import org.spongepowered.asm.mixin.transformer.ext.Extensions;
+import org.spongepowered.asm.mixin.transformer.ext.ISyntheticClassRegistry;
 
 public class HyinitClassLoader extends SecureClassLoader {
 
+    public static final String JMX_PROPERTY = "hyinit.jmx";
+
     private static final boolean DEBUG = System.getProperty("hyinit.debugClassLoader") != null;
 
     private static final ClassLoader PLATFORM_CLASS_LOADER = getPlatformClassLoader();
 
+    private static final int CONSTANT_CLASS = 7;
+
+    static final long STARTUP_IDLE_SECONDS = 10;
+
+    /** Time spent in transformations nested in the current one, per thread. */
+    private static final ThreadLocal<long[]> NESTED_TRANSFORM_NANOS = ThreadLocal.withInitial(() -> new long[1]);
+
     static {
         registerAsParallelCapable();
     }
@@ -50,8 +81,23 @@ public class HyinitClassLoader extends SecureClassLoader {
 
     private final Map<Path, Metadata> metadataCache = new ConcurrentHashMap<>();
     private final Set<String> parentSourcedClasses = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final Set<String> definedPackages = ConcurrentHashMap.newKeySet();
+    private final NegativeLookupCache negativeLookups = new NegativeLookupCache();
+    private final ResourceCache resourceCache = new ResourceCache();
+    private final ClassBytecodeCache bytecodeCache = new ClassBytecodeCache();
+    private final HierarchyReadAhead hierarchyReadAhead = new HierarchyReadAhead(bytecodeCache);
+    private final ClassLoaderStatistics statistics = new ClassLoaderStatistics(this);
+    private final List<Runnable> startupIdleActions = new CopyOnWriteArrayList<>();
+
+    private volatile List<String> noTransformPackages = List.of();
+    private volatile PrefixRouter router = createRouter(noTransformPackages);
 
     private IMixinTransformer transformer = null;
+    private ISyntheticClassRegistry syntheticClasses = null;
+    private TransformCache transformCache = null;
+    private MixinAuditTrail auditTrail = null;
+    private ClassPrefetcher prefetcher = null;
+    private MixinTargetIndex mixinTargets = null;
     private volatile Set<Path> codeSources = Collections.emptySet();
 
     public HyinitClassLoader() {
@@ -66,18 +112,204 @@ public class HyinitClassLoader extends SecureClassLoader {
         }
 
         transformer = HyinitMixinService.getTransformer();
+
+        if (transformer != null && transformer.getExtensions() instanceof Extensions extensions) {
+            syntheticClasses = extensions.getSyntheticClassRegistry();
+        }
+        if (syntheticClasses == null) {
+            HyinitLogger.get()
+                    .warn("Mixin's synthetic class registry is unavailable, every missing class will be generated");
+        }
     }
 
     public boolean isTransformerInitialized() {
         return transformer != null;
     }
 
+    /**
+     * Excludes additional packages from Mixin transformation, on top of the built-in exclusions.
+     * Package names are given with a trailing dot, e.g. {@code com.example.shaded.}. Packages that
+     * contain a Mixin target are dropped again once the {@linkplain #setMixinTargetIndex target
+     * index} is set.
+     */
+    public void setNoTransformPackages(Collection<String> packages) {
+        List<String> accepted = new ArrayList<>(packages.size());
+        for (String pkg : packages) {
+            // Built-in exclusions cover the JDK and Hyinit itself, which plugins must not reroute
+            if (TRANSFORM_EXCLUSIONS.stream().anyMatch(pkg::startsWith)) {
+                HyinitLogger.get().warn("Ignoring no-transform package " + pkg + ", it is excluded already");
+                continue;
+            }
+            accepted.add(pkg);
+        }
+        noTransformPackages = List.copyOf(accepted);
+        router = createRouter(noTransformPackages);
+    }
+
+    public void setTransformCache(TransformCache transformCache) {
+        this.transformCache = transformCache;
+    }
+
+    public TransformCache getTransformCache() {
+        return transformCache;
+    }
+
+    public void setPrefetcher(ClassPrefetcher prefetcher) {
+        this.prefetcher = prefetcher;
+    }
+
+    public void setAuditTrail(MixinAuditTrail auditTrail) {
+        this.auditTrail = auditTrail;
+    }
+
+    public MixinAuditTrail getAuditTrail() {
+        return auditTrail;
+    }
+
+    public ClassPrefetcher getPrefetcher() {
+        return prefetcher;
+    }
+
+    public void setMixinTargetIndex(MixinTargetIndex mixinTargets) {
+        this.mixinTargets = mixinTargets;
+
+        // Packages are declared before Mixin is bootstrapped, the targets are only known now. No
+        // class of the server has been loaded yet, so nothing was excluded by mistake.
+        List<String> accepted = new ArrayList<>(noTransformPackages.size());
+        for (String pkg : noTransformPackages) {
+            String target = mixinTargets.targets().stream()
+                    .filter(name -> name.startsWith(pkg))
+                    .findFirst()
+                    .orElse(null);
+            if (target != null) {
+                HyinitLogger.get()
+                        .warn("Ignoring no-transform package " + pkg + ", it contains the Mixin target " + target);
+                continue;
+            }
+            accepted.add(pkg);
+        }
+
+        if (accepted.size() != noTransformPackages.size()) {
+            noTransformPackages = List.copyOf(accepted);
+            router = createRouter(noTransformPackages);
+        }
+    }
+
+    public MixinTargetIndex getMixinTargetIndex() {
+        return mixinTargets;
+    }
+
+    CodeSourceIndex getCodeSourceIndex() {
+        return urlLoader.getIndex();
+    }
+
+    NegativeLookupCache getNegativeLookupCache() {
+        return negativeLookups;
+    }
+
+    ResourceCache getResourceCache() {
+        return resourceCache;
+    }
+
+    ClassBytecodeCache getBytecodeCache() {
+        return bytecodeCache;
+    }
+
+    HierarchyReadAhead getHierarchyReadAhead() {
+        return hierarchyReadAhead;
+    }
+
+    int getMetadataCacheSize() {
+        return metadataCache.size();
+    }
+
+    int getParentSourcedClassCount() {
+        return parentSourcedClasses.size();
+    }
+
+    public HyinitClassLoaderMXBean getStatistics() {
+        return statistics;
+    }
+
+    public static boolean isJmxEnabled() {
+        return Boolean.getBoolean(JMX_PROPERTY);
+    }
+
+    /**
+     * Registers the statistics of this loader on the platform MBean server. Only done when {@value
+     * #JMX_PROPERTY} is set, as starting the MBean server costs startup time of its own.
+     */
+    public void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                    .registerMBean(statistics, new ObjectName(HyinitClassLoaderMXBean.OBJECT_NAME));
+        } catch (JMException e) {
+            HyinitLogger.get().warn("Failed to register the class loader MBean", e);
+        }
+    }
+
+    /** Runs {@code action} once startup has settled, see {@link #startStartupMonitor()}. */
+    public void onStartupIdle(Runnable action) {
+        startupIdleActions.add(action);
+    }
+
+    /**
+     * Waits until no class was defined for {@link #STARTUP_IDLE_SECONDS}, then releases the class
+     * files still held by the bytecode cache and runs the actions registered with {@link
+     * #onStartupIdle(Runnable)}.
+     */
+    public void startStartupMonitor() {
+        long idleNanos = TimeUnit.SECONDS.toNanos(STARTUP_IDLE_SECONDS);
+
+        Thread thread = new Thread(
+                () -> {
+                    long lastChange = System.nanoTime();
+                    long lastDefined = statistics.getDefinedClasses();
+
+                    while (true) {
+                        try {
+                            Thread.sleep(1000);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+
+                        long now = System.nanoTime();
+                        long defined = statistics.getDefinedClasses();
+                        if (defined != lastDefined) {
+                            lastDefined = defined;
+                            lastChange = now;
+                        } else if (now - lastChange >= idleNanos) {
+                            break;
+                        }
+                    }
+
+                    bytecodeCache.release();
+                    startupIdleActions.forEach(Runnable::run);
+                },
+                "Hyinit Startup Monitor");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public Set<Path> getCodeSources() {
+        return Collections.unmodifiableSet(codeSources);
+    }
+
     public void addCodeSource(Path path, SourceMetadata metadata) {
+        addCodeSource(path, metadata, null);
+    }
+
+    /**
+     * Adds a code source whose jar was already opened during discovery. The loader takes over
+     * {@code jarFile}, indexes it and reads its manifest from it instead of opening the jar again.
+     */
+    public void addCodeSource(Path path, SourceMetadata metadata, JarFile jarFile) {
         path = LoaderUtil.normalizeExistingPath(path);
 
         synchronized (this) {
             Set<Path> codeSources = this.codeSources;
             if (codeSources.contains(path)) {
+                closeQuietly(jarFile);
                 return;
             }
 
@@ -89,19 +321,67 @@ public class HyinitClassLoader extends SecureClassLoader {
             SourceMetaStore.put(path, metadata);
         }
 
-        urlLoader.addURL(UrlUtil.asUrl(path));
+        urlLoader.addURL(UrlUtil.asUrl(path), jarFile);
+        negativeLookups.invalidate();
+        resourceCache.invalidate();
+
+        if (metadata.isEarlyPlugin()) {
+            // Lets plugin class loaders tell which of their packages an earlyplugin may shadow
+            try {
+                PluginPriorityCache.addEarlyPluginPackages(
+                        urlLoader.getIndex().getClassPackages(path));
+            } catch (IOException e) {
+                HyinitLogger.get().warn("Failed to list the packages of " + path, e);
+            }
+        }
+    }
+
+    private static void closeQuietly(JarFile jarFile) {
+        if (jarFile != null) {
+            try {
+                jarFile.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    public void registerInvalidClass(String name) {
+        negativeLookups.addInvalid(name.replace('/', '.'));
     }
 
     @Override
     public URL getResource(String name) {
         Objects.requireNonNull(name, "name");
 
+        URL url = lookupResource(name).url();
+        statistics.recordResourceLookup(url != null);
+        return url;
+    }
+
+    private ResourceCache.Entry lookupResource(String name) {
+        boolean cacheable = ResourceCache.isCacheable(name);
+        if (cacheable) {
+            ResourceCache.Entry entry = resourceCache.get(name);
+            if (entry != null) {
+                return entry;
+            }
+        }
+
+        long lookupGeneration = resourceCache.generation();
+        ResourceCache.Entry entry;
+
         URL url = urlLoader.getResource(name);
-        if (url == null) {
+        if (url != null) {
+            entry = new ResourceCache.Entry(url, true);
+        } else {
             url = originalLoader.getResource(name);
+            entry = url != null ? new ResourceCache.Entry(url, false) : ResourceCache.MISSING;
         }
 
-        return url;
+        if (cacheable) {
+            resourceCache.put(name, entry, lookupGeneration);
+        }
+        return entry;
     }
 
     @Override
@@ -120,14 +400,36 @@ public class HyinitClassLoader extends SecureClassLoader {
     public InputStream getResourceAsStream(String name) {
         Objects.requireNonNull(name, "name");
 
-        InputStream inputStream = urlLoader.getResourceAsStream(name);
-        if (inputStream == null) {
-            inputStream = originalLoader.getResourceAsStream(name);
+        InputStream inputStream;
+        if (ResourceCache.isCacheable(name)) {
+            inputStream = openResource(name, lookupResource(name));
+        } else {
+            inputStream = urlLoader.getResourceAsStream(name);
+            if (inputStream == null) {
+                inputStream = originalLoader.getResourceAsStream(name);
+            }
         }
 
+        statistics.recordResourceLookup(inputStream != null);
         return inputStream;
     }
 
+    private InputStream openResource(String name, ResourceCache.Entry entry) {
+        if (entry.url() == null) {
+            return null;
+        }
+
+        try {
+            if (entry.fromCodeSource()) {
+                // Read through the code source index rather than a jar URL connection
+                return urlLoader.getResourceAsStream(name);
+            }
+            return entry.url().openStream();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
     @Override
     public Enumeration<URL> getResources(String name) throws IOException {
         Objects.requireNonNull(name, "name");
@@ -138,9 +440,7 @@ public class HyinitClassLoader extends SecureClassLoader {
         if (!primary.hasMoreElements()) return fallback;
         if (!fallback.hasMoreElements()) return primary;
 
-        var merged = Collections.list(primary);
-        while (fallback.hasMoreElements()) merged.add(fallback.nextElement());
-        return Collections.enumeration(merged);
+        return new MergedEnumeration(primary, fallback);
     }
 
     @Override
@@ -149,36 +449,19 @@ public class HyinitClassLoader extends SecureClassLoader {
             Class<?> c = findLoadedClass(name);
 
             if (c == null) {
-                if (name.startsWith("cc.irori.hyinit.shared.")
-                        || name.equals(getClass().getName())) {
-                    c = originalLoader.loadClass(name);
-                } else if (name.startsWith("java.")) {
-                    c = PLATFORM_CLASS_LOADER.loadClass(name);
-                } else {
-                    c = tryLoadClass(name, false);
-
-                    if (c == null) {
-                        String fileName = LoaderUtil.getClassFileName(name);
-                        URL url = originalLoader.getResource(fileName);
-
-                        if (url == null) {
-                            try {
-                                c = PLATFORM_CLASS_LOADER.loadClass(name);
-                            } catch (ClassNotFoundException e) {
-                                if (DEBUG) {
-                                    HyinitLogger.get().warn(String.format("Cannot find class %s", name), e);
-                                }
-                                throw e;
-                            }
-                        } else if (!isValidParentUrl(url, fileName)) {
-                            String message = String.format(
-                                    "Class '%s' is present in the parent classloader but does not have a valid resource URL %s",
-                                    name, url);
-                            HyinitLogger.get().warn(message);
-                            throw new ClassNotFoundException(message);
-                        } else {
-                            c = originalLoader.loadClass(name);
-                        }
+                ClassLookupEvent event = new ClassLookupEvent();
+                event.begin();
+                try (StartupTrace.Span span = StartupTrace.begin(StartupTrace.CATEGORY_CLASS_LOAD, name)) {
+                    c = lookupClass(name);
+                } catch (StacklessClassNotFoundException e) {
+                    event.cachedMiss = true;
+                    throw e;
+                } finally {
+                    event.end();
+                    if (event.shouldCommit()) {
+                        event.className = name;
+                        event.found = c != null;
+                        event.commit();
                     }
                 }
             }
@@ -191,7 +474,69 @@ public class HyinitClassLoader extends SecureClassLoader {
         }
     }
 
-    private Class<?> tryLoadClass(String name, boolean allowFromParent) throws ClassNotFoundException {
+    private Class<?> lookupClass(String name) throws ClassNotFoundException {
+        PrefixRouter.Route route = router.route(name);
+
+        if (route == PrefixRouter.Route.PARENT || name.equals(getClass().getName())) {
+            return originalLoader.loadClass(name);
+        } else if (route == PrefixRouter.Route.PLATFORM) {
+            return PLATFORM_CLASS_LOADER.loadClass(name);
+        } else if (negativeLookups.isKnownMissing(name)) {
+            throw new StacklessClassNotFoundException(name);
+        }
+
+        long lookupGeneration = negativeLookups.generation();
+        Class<?> c = tryLoadClass(name, route, false);
+        if (c != null) {
+            return c;
+        }
+
+        String fileName = LoaderUtil.getClassFileName(name);
+        URL url = originalLoader.getResource(fileName);
+
+        if (url == null) {
+            try {
+                return loadFallbackClass(name, PLATFORM_CLASS_LOADER, "platform");
+            } catch (ClassNotFoundException e) {
+                if (DEBUG) {
+                    HyinitLogger.get().warn(String.format("Cannot find class %s", name), e);
+                }
+                negativeLookups.addMissing(name, lookupGeneration);
+                throw e;
+            }
+        } else if (!isValidParentUrl(url, fileName)) {
+            String message = String.format(
+                    "Class '%s' is present in the parent classloader but does not have a valid resource URL %s",
+                    name, url);
+            HyinitLogger.get().warn(message);
+            throw new ClassNotFoundException(message);
+        } else {
+            return loadFallbackClass(name, originalLoader, "parent");
+        }
+    }
+
+    private static Class<?> loadFallbackClass(String name, ClassLoader loader, String loaderName)
+            throws ClassNotFoundException {
+        ClassFallbackEvent event = new ClassFallbackEvent();
+        event.begin();
+
+        Class<?> c = null;
+        try {
+            c = loader.loadClass(name);
+            return c;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.className = name;
+                event.loader = loaderName;
+                event.found = c != null;
+                event.commit();
+            }
+        }
+    }
+
+    private Class<?> tryLoadClass(String name, PrefixRouter.Route route, boolean allowFromParent)
+            throws ClassNotFoundException {
         if (!allowFromParent && !parentSourcedClasses.isEmpty()) {
             int pos = name.length();
 
@@ -203,11 +548,70 @@ public class HyinitClassLoader extends SecureClassLoader {
             }
         }
 
-        byte[] input = getPostMixinClassByteArray(name, allowFromParent);
+        // Resolved once and carried through to defineClass, so the code source of the class does not
+        // have to be looked up again
+        CodeSourceIndex.Source source = urlLoader.getIndex().find(LoaderUtil.getClassFileName(name));
+
+        boolean transformable = isTransformerInitialized() && route == PrefixRouter.Route.DEFAULT;
+        if (!transformable || !isMixinTarget(name)) {
+            // Classes that are never transformed are defined straight from a reusable buffer, unless
+            // Mixin already read them as part of a hierarchy
+            byte[] cached = source != null ? bytecodeCache.take(name) : null;
+            if (cached != null) {
+                if (transformable) {
+                    mixinTargets.recordBypass();
+                }
+                return defineClassBytes(name, ByteBuffer.wrap(cached), source, allowFromParent, false);
+            }
+
+            ClassBuffer buffer = ClassBuffer.acquire();
+            try {
+                ByteBuffer input = readRawClass(name, source, allowFromParent, buffer);
+                if (input != null) {
+                    if (transformable) {
+                        mixinTargets.recordBypass();
+                    }
+                    return defineClassBytes(name, input, source, allowFromParent, false);
+                }
+            } finally {
+                buffer.release();
+            }
+
+            if (!transformable) {
+                return null;
+            }
+
+            // Not on disk, but may still be a synthetic class generated by Mixin
+        }
+
+        ClassPrefetcher prefetcher = this.prefetcher;
+        byte[] input = prefetcher != null && !allowFromParent
+                ? prefetcher.getClassBytes(name, () -> getPostMixinClassByteArray(name, false))
+                : getPostMixinClassByteArray(name, allowFromParent);
         if (input == null) {
             return null;
         }
 
+        return defineClassBytes(name, ByteBuffer.wrap(input), source, allowFromParent, true);
+    }
+
+    boolean isPrefetchable(String name) {
+        return isTransformerInitialized()
+                && canTransformClass(name)
+                && isMixinTarget(name)
+                && findLoadedClass(name) == null;
+    }
+
+    byte[] getPrefetchClassBytes(String name) {
+        return getPostMixinClassByteArray(name, false);
+    }
+
+    private Class<?> defineClassBytes(
+            String name,
+            ByteBuffer input,
+            CodeSourceIndex.Source source,
+            boolean allowFromParent,
+            boolean transformed) {
         Class<?> existingClass = findLoadedClass(name);
         if (existingClass != null) {
             return existingClass;
@@ -217,39 +621,62 @@ public class HyinitClassLoader extends SecureClassLoader {
             parentSourcedClasses.add(name);
         }
 
-        Metadata metadata = getMetadata(name);
+        // Classes that are not in the code sources come from the parent loader or Mixin's class
+        // generators, fall back to resolving their code source from the resource URL
+        Metadata metadata = source != null ? getMetadata(source.path()) : getMetadata(name);
         int packageDelimiterPos = name.lastIndexOf('.');
 
         if (packageDelimiterPos > 0) {
             String packageStr = name.substring(0, packageDelimiterPos);
-            if (getPackage(packageStr) == null) {
-                try {
-                    definePackage(packageStr, null, null, null, null, null, null, null);
-                } catch (IllegalArgumentException e) {
-                    if (getPackage(packageStr) == null) {
-                        throw e;
+            if (!definedPackages.contains(packageStr)) {
+                if (getPackage(packageStr) == null) {
+                    try {
+                        definePackage(packageStr, metadata.manifest());
+                    } catch (IllegalArgumentException e) {
+                        if (getPackage(packageStr) == null) {
+                            throw e;
+                        }
                     }
                 }
+                definedPackages.add(packageStr);
             }
         }
 
-        return defineClass(name, input, 0, input.length, metadata.codeSource);
-    }
+        ClassDefineEvent event = new ClassDefineEvent();
+        event.begin();
+
+        int size = input.remaining();
+        Class<?> c = defineClass(name, input, metadata.codeSource);
+        Path path = source != null ? source.path() : null;
+        statistics.recordDefine(path, transformed);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.className = name;
+            event.codeSource = describeCodeSource(path);
+            event.earlyPlugin = isEarlyPlugin(path);
+            event.transformed = transformed;
+            event.size = size;
+            event.commit();
+        }
 
-    public byte[] getClassByteArray(String name, boolean runTransformers) throws IOException {
-        byte[] bytes;
-        if (runTransformers) {
-            bytes = getPreMixinClassBytes(name);
-        } else {
-            bytes = getRawClassBytes(name);
+        ClassPrefetcher prefetcher = this.prefetcher;
+        if (prefetcher != null) {
+            prefetcher.recordLoad(name);
         }
 
+        return c;
+    }
+
+    public byte[] getClassByteArray(String name, boolean runTransformers) throws IOException {
+        // Mixin reads the original class file either way, the transformer is not involved
+        byte[] bytes = getCachedClassBytes(name.replace('/', '.'));
         if (bytes != null) {
             return bytes;
         }
 
         // No class file on disk, test for synthetic class generation for @Accessor and @Invoker
-        if (isTransformerInitialized()) {
+        if (isTransformerInitialized() && isSyntheticClass(name)) {
             try {
                 byte[] generated = transformer.generateClass(MixinEnvironment.getCurrentEnvironment(), name);
                 if (generated != null) {
@@ -264,37 +691,89 @@ public class HyinitClassLoader extends SecureClassLoader {
     }
 
     public byte[] getRawClassBytes(String name) throws IOException {
-        return getRawClassByteArray(name, true);
+        return getRawClassByteArray(name, true, false);
     }
 
-    private byte[] getRawClassByteArray(String name, boolean allowFromParent) throws IOException {
-        name = LoaderUtil.getClassFileName(name);
-        URL url = findResource(name);
+    /**
+     * Returns the class file of a class that has not been defined yet, reading it only if it is not
+     * in the bytecode cache already, and keeping it there until the class is defined.
+     */
+    byte[] getCachedClassBytes(String name) throws IOException {
+        byte[] bytes = bytecodeCache.get(name);
+        if (bytes != null) {
+            return bytes;
+        }
 
-        if (url == null) {
-            if (!allowFromParent) {
+        return getRawClassByteArray(name, true, findLoadedClass(name) == null);
+    }
+
+    private byte[] getRawClassByteArray(String name, boolean allowFromParent, boolean cache) throws IOException {
+        ClassReadEvent event = new ClassReadEvent();
+        event.begin();
+
+        String fileName = LoaderUtil.getClassFileName(name);
+        CodeSourceIndex.Source source = urlLoader.getIndex().find(fileName);
+        byte[] bytes;
+        try (InputStream inputStream =
+                source != null ? source.openStream(fileName) : openParentClassFile(fileName, allowFromParent)) {
+            if (inputStream == null) {
                 return null;
             }
 
-            url = originalLoader.getResource(name);
+            ClassBuffer buffer = ClassBuffer.acquire();
+            try {
+                bytes = buffer.readAllBytes(inputStream);
+            } finally {
+                buffer.release();
+            }
+        }
+
+        if (cache && source != null) {
+            bytecodeCache.put(name, bytes);
+        }
 
-            if (!isValidParentUrl(url, name)) {
+        event.end();
+        if (event.shouldCommit()) {
+            commitReadEvent(event, name, source != null ? source.path() : null, bytes.length);
+        }
+        return bytes;
+    }
+
+    private ByteBuffer readRawClass(
+            String name, CodeSourceIndex.Source source, boolean allowFromParent, ClassBuffer buffer) {
+        ClassReadEvent event = new ClassReadEvent();
+        event.begin();
+
+        String fileName = LoaderUtil.getClassFileName(name);
+        try (InputStream inputStream =
+                source != null ? source.openStream(fileName) : openParentClassFile(fileName, allowFromParent)) {
+            if (inputStream == null) {
                 return null;
             }
-        }
 
-        try (InputStream inputStream = url.openStream()) {
-            int avail = inputStream.available();
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(avail < 32 ? 32768 : avail);
-            byte[] buffer = new byte[8192];
-            int len;
+            ByteBuffer bytes = buffer.read(inputStream);
 
-            while ((len = inputStream.read(buffer)) > 0) {
-                outputStream.write(buffer, 0, len);
+            event.end();
+            if (event.shouldCommit()) {
+                commitReadEvent(event, name, source != null ? source.path() : null, bytes.remaining());
             }
+            return bytes;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load class file for '" + name + "'", e);
+        }
+    }
 
-            return outputStream.toByteArray();
+    private InputStream openParentClassFile(String fileName, boolean allowFromParent) throws IOException {
+        if (!allowFromParent) {
+            return null;
+        }
+
+        URL url = originalLoader.getResource(fileName);
+        if (!isValidParentUrl(url, fileName)) {
+            return null;
         }
+
+        return url.openStream();
     }
 
     public byte[] getPreMixinClassBytes(String name) {
@@ -305,32 +784,96 @@ public class HyinitClassLoader extends SecureClassLoader {
         name = name.replace('/', '.');
 
         try {
-            return getRawClassByteArray(name, allowFromParent);
+            return getRawClassByteArray(name, allowFromParent, false);
         } catch (IOException e) {
             throw new RuntimeException("Failed to load class file for '" + name + "'", e);
         }
     }
 
     private byte[] getPostMixinClassByteArray(String name, boolean allowFromParent) {
-        byte[] original = getPreMixinClassByteArray(name, allowFromParent);
+        // Read before by Mixin, consumed now as the class is about to be defined
+        byte[] original = bytecodeCache.take(name);
+        if (original == null) {
+            original = getPreMixinClassByteArray(name, allowFromParent);
+        }
 
         if (!isTransformerInitialized() || !canTransformClass(name)) {
             return original;
         }
 
         if (original != null) {
-            try {
-                return transformer.transformClassBytes(name, name, original);
+            MixinTransformEvent event = new MixinTransformEvent();
+            event.begin();
+
+            TransformCache cache = transformCache;
+            if (cache != null) {
+                byte[] cached = cache.get(name, original);
+                if (cached != null) {
+                    if (auditTrail != null) {
+                        auditTrail.recordCached();
+                    }
+                    commitTransformEvent(event, name, original, cached, true);
+                    return cached;
+                }
+            }
+
+            // Mixin transforms one class at a time, do the I/O it would need while not holding its lock
+            hierarchyReadAhead.readAhead(original, this::readAheadClassBytes);
+
+            byte[] transformed;
+            long nanos;
+            try (StartupTrace.Span span = StartupTrace.begin(StartupTrace.CATEGORY_TRANSFORM, name)) {
+                long[] nestedNanos = NESTED_TRANSFORM_NANOS.get();
+                long enclosingNestedNanos = nestedNanos[0];
+                nestedNanos[0] = 0;
+                long start = System.nanoTime();
+                try {
+                    transformed = transformer.transformClassBytes(name, name, original);
+                } finally {
+                    // Targets loaded while this one is transformed record their own time
+                    long elapsed = System.nanoTime() - start;
+                    nanos = elapsed - nestedNanos[0];
+                    nestedNanos[0] = enclosingNestedNanos + elapsed;
+                }
             } catch (Throwable t) {
                 String message = String.format("Mixin transformation of %s failed", name);
                 HyinitLogger.get().error(message, t);
                 throw new RuntimeException(message, t);
             }
+
+            statistics.recordTransform(nanos);
+            if (auditTrail != null) {
+                auditTrail.recordTransform(name, nanos, original.length, transformed.length);
+            }
+            if (cache != null && !referencesSyntheticClass(original, transformed)) {
+                try {
+                    cache.put(name, original, transformed);
+                } catch (RuntimeException e) {
+                    // The class is transformed either way, it is just not cached
+                    HyinitLogger.get().warn("Failed to cache the transformed bytes of " + name, e);
+                }
+            }
+            commitTransformEvent(event, name, original, transformed, false);
+            return transformed;
         }
 
         // No class file on disk, proceed with Mixin's generateClass for synthetics
+        if (!isSyntheticClass(name)) {
+            return null;
+        }
+
+        ClassGenerateEvent event = new ClassGenerateEvent();
+        event.begin();
         try {
             byte[] generated = transformer.generateClass(MixinEnvironment.getCurrentEnvironment(), name);
+            event.end();
+            if (event.shouldCommit()) {
+                event.className = name;
+                event.generated = generated != null;
+                event.size = generated != null ? generated.length : 0;
+                event.commit();
+            }
+
             if (generated != null) {
                 if (DEBUG) {
                     HyinitLogger.get()
@@ -345,12 +888,121 @@ public class HyinitClassLoader extends SecureClassLoader {
         return null;
     }
 
+    /**
+     * Returns {@code true} if Mixin registered the class as one it will generate. Synthetic classes
+     * (argument holders, inner classes of mixins) are registered while their target is transformed,
+     * which always happens before they are loaded, so other names can be answered as missing
+     * without letting Mixin fail on them.
+     */
+    private boolean isSyntheticClass(String name) {
+        ISyntheticClassRegistry syntheticClasses = this.syntheticClasses;
+        if (syntheticClasses == null) {
+            return true;
+        }
+
+        if (syntheticClasses.findSyntheticClass(name) != null) {
+            return true;
+        }
+
+        statistics.recordGenerateSkip();
+        return false;
+    }
+
+    /**
+     * Returns {@code true} if the transformed class refers to a class Mixin generates. Synthetic
+     * classes such as {@code Args$1} are named from counters that restart on every run, so a target
+     * referring to one must not be cached: on the next run the same name may be registered for a
+     * class of a different shape.
+     */
+    private boolean referencesSyntheticClass(byte[] original, byte[] transformed) {
+        if (transformed == original) {
+            return false;
+        }
+
+        ISyntheticClassRegistry syntheticClasses = this.syntheticClasses;
+        if (syntheticClasses == null) {
+            return true;
+        }
+
+        ClassReader reader = new ClassReader(transformed);
+        char[] buffer = new char[reader.getMaxStringLength()];
+        for (int i = 1; i < reader.getItemCount(); i++) {
+            // The second slot of long and double constants has no offset
+            int offset = reader.getItem(i);
+            if (offset > 0
+                    && reader.readByte(offset - 1) == CONSTANT_CLASS
+                    && syntheticClasses.findSyntheticClass(reader.readUTF8(offset, buffer)) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private byte[] readAheadClassBytes(String name) {
+        if (findLoadedClass(name) != null) {
+            return null;
+        }
+
+        try {
+            return getCachedClassBytes(name);
+        } catch (IOException e) {
+            // Mixin reads the class again and reports the failure itself
+            return null;
+        }
+    }
+
+    private void commitReadEvent(ClassReadEvent event, String name, Path codeSource, int size) {
+        event.className = name;
+        event.codeSource = describeCodeSource(codeSource);
+        event.earlyPlugin = isEarlyPlugin(codeSource);
+        event.size = size;
+        event.commit();
+    }
+
+    private void commitTransformEvent(
+            MixinTransformEvent event, String name, byte[] original, byte[] transformed, boolean cached) {
+        event.end();
+        if (event.shouldCommit()) {
+            Path codeSource = findCodeSourcePath(LoaderUtil.getClassFileName(name));
+            event.className = name;
+            event.codeSource = describeCodeSource(codeSource);
+            event.earlyPlugin = isEarlyPlugin(codeSource);
+            event.originalSize = original.length;
+            event.transformedSize = transformed.length;
+            event.cached = cached;
+            event.commit();
+        }
+    }
+
+    private Path findCodeSourcePath(String fileName) {
+        CodeSourceIndex.Source source = urlLoader.getIndex().find(fileName);
+        return source != null ? source.path() : null;
+    }
+
+    private static String describeCodeSource(Path path) {
+        return path != null ? path.toString() : null;
+    }
+
+    private static boolean isEarlyPlugin(Path path) {
+        if (path == null) {
+            return false;
+        }
+
+        SourceMetadata metadata = SourceMetaStore.get(path);
+        return metadata != null && metadata.isEarlyPlugin();
+    }
+
     public boolean isClassLoaded(String name) {
         synchronized (getClassLoadingLock(name)) {
             return findLoadedClass(name) != null;
         }
     }
 
+    private boolean isMixinTarget(String name) {
+        MixinTargetIndex mixinTargets = this.mixinTargets;
+        return mixinTargets == null || mixinTargets.isTarget(name);
+    }
+
     private boolean isValidParentUrl(URL url, String fileName) {
         if (url == null) {
             return false;
@@ -363,6 +1015,34 @@ public class HyinitClassLoader extends SecureClassLoader {
         return !codeSources.contains(codeSource);
     }
 
+    /**
+     * Defines a package with the specification and implementation attributes of its code source's
+     * manifest, preferring the package's own section over the main attributes like {@link
+     * java.net.URLClassLoader} does. Packages are not sealed.
+     */
+    private void definePackage(String name, Manifest manifest) {
+        Attributes section = manifest != null ? manifest.getAttributes(name.replace('.', '/') + '/') : null;
+        Attributes main = manifest != null ? manifest.getMainAttributes() : null;
+
+        definePackage(
+                name,
+                getAttribute(section, main, Attributes.Name.SPECIFICATION_TITLE),
+                getAttribute(section, main, Attributes.Name.SPECIFICATION_VERSION),
+                getAttribute(section, main, Attributes.Name.SPECIFICATION_VENDOR),
+                getAttribute(section, main, Attributes.Name.IMPLEMENTATION_TITLE),
+                getAttribute(section, main, Attributes.Name.IMPLEMENTATION_VERSION),
+                getAttribute(section, main, Attributes.Name.IMPLEMENTATION_VENDOR),
+                null);
+    }
+
+    private static String getAttribute(Attributes section, Attributes main, Attributes.Name name) {
+        String value = section != null ? section.getValue(name) : null;
+        if (value == null && main != null) {
+            value = main.getValue(name);
+        }
+        return value;
+    }
+
     private Metadata getMetadata(String name) {
         String fileName = LoaderUtil.getClassFileName(name);
         URL url = getResource(fileName);
@@ -375,39 +1055,50 @@ public class HyinitClassLoader extends SecureClassLoader {
     }
 
     private Metadata getMetadata(Path sourcePath) {
-        return metadataCache.computeIfAbsent(sourcePath, path -> {
+        // The manifest is only read once a package is defined from the source. Certificates are not
+        // read at all: the connection to the jar root that was used for them never points at a
+        // signed entry, so it always reported none.
+        return metadataCache.computeIfAbsent(
+                sourcePath,
+                path -> new Metadata(
+                        path,
+                        urlLoader.getIndex().getJarFile(path),
+                        new CodeSource(UrlUtil.asUrl(path), (Certificate[]) null)));
+    }
+
+    private static Manifest readManifest(Path path, JarFile jarFile) {
+        try {
+            if (jarFile != null) {
+                // The jar the code source index keeps open, so it is not opened again
+                return jarFile.getManifest();
+            }
+
+            if (Files.isDirectory(path)) {
+                return ManifestUtil.readManifestFromBasePath(path);
+            }
+
             Manifest manifest = null;
-            Certificate[] certificates = null;
+            URLConnection connection = new URL("jar:" + path.toUri() + "!/").openConnection();
 
-            try {
-                if (Files.isDirectory(path)) {
-                    manifest = ManifestUtil.readManifestFromBasePath(path);
-                } else {
-                    URLConnection connection = new URL("jar:" + path.toUri() + "!/").openConnection();
-
-                    if (connection instanceof JarURLConnection) {
-                        manifest = ((JarURLConnection) connection).getManifest();
-                        certificates = ((JarURLConnection) connection).getCertificates();
-                    }
+            if (connection instanceof JarURLConnection) {
+                manifest = ((JarURLConnection) connection).getManifest();
+            }
 
-                    if (manifest == null) {
-                        try (FileSystemWrapper fs = getJarFileSystem(path.toUri(), false)) {
-                            manifest = ManifestUtil.readManifestFromBasePath(fs.delegate()
-                                    .getRootDirectories()
-                                    .iterator()
-                                    .next());
-                        }
-                    }
+            if (manifest == null) {
+                try (FileSystemWrapper fs = getJarFileSystem(path.toUri(), false)) {
+                    manifest = ManifestUtil.readManifestFromBasePath(
+                            fs.delegate().getRootDirectories().iterator().next());
                 }
-            } catch (IOException | FileSystemNotFoundException e) {
-                HyinitLogger.get().warn("Failed to load manifest", e);
             }
 
-            return new Metadata(manifest, new CodeSource(UrlUtil.asUrl(path), certificates));
-        });
+            return manifest;
+        } catch (IOException | FileSystemNotFoundException e) {
+            HyinitLogger.get().warn("Failed to load manifest", e);
+            return null;
+        }
     }
 
-    private static final Set<String> TRANSFORM_EXCLUSIONS = Set.of(
+    private static final List<String> TRANSFORM_EXCLUSIONS = List.of(
             "java.",
             "javax.",
             "jdk.",
@@ -426,13 +1117,17 @@ public class HyinitClassLoader extends SecureClassLoader {
             "org.bouncycastle.",
             "com.hypixel.hytale.plugin.early.");
 
-    private static boolean canTransformClass(String name) {
-        for (String prefix : TRANSFORM_EXCLUSIONS) {
-            if (name.startsWith(prefix)) {
-                return false;
-            }
-        }
-        return true;
+    private static PrefixRouter createRouter(Collection<String> noTransformPackages) {
+        return PrefixRouter.builder()
+                .addAll(TRANSFORM_EXCLUSIONS, PrefixRouter.Route.NO_TRANSFORM)
+                .addAll(noTransformPackages, PrefixRouter.Route.NO_TRANSFORM)
+                .add("cc.irori.hyinit.shared.", PrefixRouter.Route.PARENT)
+                .add("java.", PrefixRouter.Route.PLATFORM)
+                .build();
+    }
+
+    boolean canTransformClass(String name) {
+        return router.route(name) == PrefixRouter.Route.DEFAULT;
     }
 
     private static boolean hasRegularCodeSource(URL url) {
@@ -473,8 +1168,78 @@ public class HyinitClassLoader extends SecureClassLoader {
         return new FileSystemWrapper(fs, opened);
     }
 
-    private record Metadata(Manifest manifest, CodeSource codeSource) {
-        static final Metadata EMPTY = new Metadata(null, null);
+    private static final class Metadata {
+        static final Metadata EMPTY = new Metadata(null, null, null);
+
+        private final Path path;
+        private final JarFile jarFile;
+        private final CodeSource codeSource;
+
+        private volatile boolean manifestLoaded;
+        private Manifest manifest;
+
+        Metadata(Path path, JarFile jarFile, CodeSource codeSource) {
+            this.path = path;
+            this.jarFile = jarFile;
+            this.codeSource = codeSource;
+        }
+
+        Manifest manifest() {
+            if (!manifestLoaded) {
+                synchronized (this) {
+                    if (!manifestLoaded) {
+                        manifest = path != null ? readManifest(path, jarFile) : null;
+                        manifestLoaded = true;
+                    }
+                }
+            }
+            return manifest;
+        }
+    }
+
+    /**
+     * Concatenates the resources of the code sources and the parent loader lazily, skipping URLs
+     * that both of them return.
+     */
+    private static final class MergedEnumeration implements Enumeration<URL> {
+
+        private final Enumeration<URL> primary;
+        private final Enumeration<URL> fallback;
+        // URL.equals resolves host names, compare the external forms instead
+        private final Set<String> seen = new HashSet<>();
+        private URL next;
+
+        MergedEnumeration(Enumeration<URL> primary, Enumeration<URL> fallback) {
+            this.primary = primary;
+            this.fallback = fallback;
+        }
+
+        @Override
+        public boolean hasMoreElements() {
+            while (next == null) {
+                Enumeration<URL> source = primary.hasMoreElements() ? primary : fallback;
+                if (!source.hasMoreElements()) {
+                    return false;
+                }
+
+                URL url = source.nextElement();
+                if (seen.add(url.toExternalForm())) {
+                    next = url;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public URL nextElement() {
+            if (!hasMoreElements()) {
+                throw new NoSuchElementException();
+            }
+
+            URL url = next;
+            next = null;
+            return url;
+        }
     }
 
     private record FileSystemWrapper(FileSystem delegate, boolean owned) implements AutoCloseable {
@@ -0,0 +1,99 @@
+package cc.irori.hyinit.mixin;
+
+import java.util.Map;
+
+/**
+ * Live statistics of {@link HyinitClassLoader}, registered on the platform MBean server as
+ * {@value #OBJECT_NAME} when {@value HyinitClassLoader#JMX_PROPERTY} is set.
+ */
+public interface HyinitClassLoaderMXBean {
+
+    String OBJECT_NAME = "cc.irori.hyinit:type=HyinitClassLoader";
+
+    /** Total number of classes defined by the loader. */
+    long getDefinedClasses();
+
+    /**
+     * Number of classes defined per code source. Classes without a code source of their own, such
+     * as Mixin's synthetic classes, are counted under {@code <none>}.
+     */
+    Map<String, Long> getDefinedClassesByCodeSource();
+
+    /** Number of classes defined from bytes that went through the Mixin transformer. */
+    long getTransformedClasses();
+
+    /** Number of classes defined straight from their class file, without the Mixin transformer. */
+    long getPassthroughClasses();
+
+    /**
+     * Cumulative time spent in the Mixin transformer, in milliseconds. Transformations nested in
+     * another are only counted once.
+     */
+    long getTransformTimeMillis();
+
+    /** Number of missing classes answered without asking Mixin to generate them. */
+    long getSkippedClassGenerations();
+
+    long getResourceLookupHits();
+
+    long getResourceLookupMisses();
+
+    /** Number of resource lookups answered by the resource cache, including cached misses. */
+    long getResourceCacheHits();
+
+    long getResourceCacheMisses();
+
+    /** Share of cacheable resource lookups answered by the resource cache, between 0 and 1. */
+    double getResourceCacheHitRate();
+
+    int getResourceCacheEntries();
+
+    /**
+     * Number of class files the bytecode cache saved reading from the jar again, each counted
+     * once.
+     */
+    long getBytecodeCacheHits();
+
+    long getBytecodeCacheMisses();
+
+    /**
+     * Number of class files read but not yet consumed by defining their class. Drops to zero once
+     * startup has settled and the cache is released.
+     */
+    int getBytecodeCacheEntries();
+
+    /** Number of supertypes read and parsed before entering the Mixin transformer. */
+    long getHierarchyReadAheadClasses();
+
+    /** Number of supertypes parsed ahead whose class node Mixin then requested. */
+    long getHierarchyReadAheadHits();
+
+    /** Number of class lookups answered by the negative lookup cache. */
+    long getNegativeLookupHits();
+
+    /** Number of class names currently held by the negative lookup cache. */
+    int getNegativeLookupEntries();
+
+    /**
+     * Number of classes returned by plugin class loaders whose earlyplugin check was answered from
+     * the per-loader cache, summed over all plugin loaders.
+     */
+    long getPluginPriorityCacheHits();
+
+    /** Number of earlyplugin checks that missed the per-loader cache, summed over all plugin loaders. */
+    long getPluginPriorityCacheMisses();
+
+    /**
+     * Number of classes from earlyplugins in a package that a plugin's own jar also has, summed over
+     * all plugin loaders.
+     */
+    long getPluginPriorityOverlaps();
+
+    /** Number of code sources whose metadata has been resolved. */
+    int getMetadataCacheSize();
+
+    /** Number of classes that were loaded from the parent class path. */
+    int getParentSourcedClasses();
+
+    int getCodeSources();
+}
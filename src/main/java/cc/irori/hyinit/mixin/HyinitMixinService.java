@@ -26,11 +26,17 @@ public class HyinitMixinService
 
     private static HyinitClassLoader gameClassLoader;
     private static IMixinTransformer transformer;
+    private static MixinAuditTrail auditTrail;
 
     public static void setGameClassLoader(HyinitClassLoader loader) {
         gameClassLoader = loader;
     }
 
+    /** Sets the audit trail Mixin reports to. Has to be set before the transformer is created. */
+    public static void setAuditTrail(MixinAuditTrail trail) {
+        auditTrail = trail;
+    }
+
     public static IMixinTransformer getTransformer() {
         return transformer;
     }
@@ -62,6 +68,11 @@ public class HyinitMixinService
     @Override
     public ClassNode getClassNode(String name, boolean runTransformers, int readerFlags)
             throws ClassNotFoundException, IOException {
+        ClassNode cached = gameClassLoader.getBytecodeCache().takeNode(name.replace('/', '.'), readerFlags);
+        if (cached != null) {
+            return cached;
+        }
+
         ClassReader reader = new ClassReader(getClassBytes(name, runTransformers));
         ClassNode node = new ClassNode();
         reader.accept(node, readerFlags);
@@ -149,7 +160,7 @@ public class HyinitMixinService
 
     @Override
     public IMixinAuditTrail getAuditTrail() {
-        return null;
+        return auditTrail;
     }
 
     @Override
@@ -172,7 +183,9 @@ public class HyinitMixinService
         return gameClassLoader.getResourceAsStream(name);
     }
 
-    public void registerInvalidClass(String className) {}
+    public void registerInvalidClass(String className) {
+        gameClassLoader.registerInvalidClass(className);
+    }
 
     @Override
     public boolean isClassLoaded(String className) {
@@ -0,0 +1,439 @@
+package cc.irori.hyinit.mixin;
+
+import cc.irori.hyinit.HyinitLogger;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import org.spongepowered.asm.service.IMixinAuditTrail;
+
+/**
+ * Records which mixins Mixin applied to which targets, and what that cost.
+ *
+ * <p>Mixin reports every application, post-processed class and generated class through {@link
+ * IMixinAuditTrail}, and {@link HyinitClassLoader} reports the time the transformer took for each
+ * target and how much the class file grew. A target's time excludes other targets loaded and
+ * transformed while it ran, which report their own. The cost of a target is split evenly between
+ * the mixins applied to it, and attributed to the earlyplugin jar their config was found in, so
+ * that a plugin slowing down startup or bloating hot classes shows up by name.
+ *
+ * <p>A summary is logged once class loading has been idle for {@link
+ * HyinitClassLoader#STARTUP_IDLE_SECONDS}, and the full report is written to {@value
+ * #FILE_PROPERTY} then and again on shutdown. Everything is also available over JMX through {@link
+ * MixinAuditTrailMXBean}.
+ */
+public final class MixinAuditTrail implements IMixinAuditTrail, MixinAuditTrailMXBean {
+
+    public static final String ENABLED_PROPERTY = "hyinit.audit";
+    public static final String FILE_PROPERTY = "hyinit.audit.file";
+    public static final String TOP_PROPERTY = "hyinit.audit.top";
+
+    private static final String DEFAULT_FILE = ".hyinit/mixin-audit.json";
+    private static final int DEFAULT_TOP = 10;
+
+    private static final HyinitLogger LOGGER = HyinitLogger.get();
+
+    private final Map<String, Path> origins;
+    private final int top;
+
+    private final Map<String, Target> targets = new ConcurrentHashMap<>();
+    private final Map<String, Cost> costByOrigin = new ConcurrentHashMap<>();
+    private final Map<String, Cost> costByMixin = new ConcurrentHashMap<>();
+    private final Set<String> postProcessed = ConcurrentHashMap.newKeySet();
+    private final Map<String, String> generated = new ConcurrentHashMap<>();
+
+    private final LongAdder applied = new LongAdder();
+    private final LongAdder cached = new LongAdder();
+    private final LongAdder unattributedNanos = new LongAdder();
+
+    private MixinAuditTrail(Map<String, Path> origins) {
+        this.origins = origins;
+        this.top = Math.max(1, Integer.getInteger(TOP_PROPERTY, DEFAULT_TOP));
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    /**
+     * @param origins the earlyplugin jar of each Mixin config, as collected by {@code
+     *     ConfigCollector}
+     */
+    public static MixinAuditTrail create(Map<String, Path> origins) {
+        return new MixinAuditTrail(Map.copyOf(origins));
+    }
+
+    public void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            LOGGER.warn("Failed to register the Mixin audit trail MBean", e);
+        }
+    }
+
+    @Override
+    public void onApply(String className, String mixinName) {
+        String target = className.replace('/', '.');
+        targets.computeIfAbsent(target, name -> new Target()).addMixin(mixinName);
+        applied.increment();
+        cost(costByOrigin, originOf(mixinName)).applications.increment();
+        cost(costByMixin, mixinName).applications.increment();
+    }
+
+    @Override
+    public void onPostProcess(String className) {
+        postProcessed.add(className.replace('/', '.'));
+    }
+
+    @Override
+    public void onGenerate(String className, String generatorName) {
+        generated.put(className.replace('/', '.'), generatorName);
+    }
+
+    /**
+     * Attributes one run of the transformer over a target to the mixins Mixin applied to it while
+     * it ran.
+     */
+    void recordTransform(String name, long nanos, int originalSize, int transformedSize) {
+        Target target = targets.get(name);
+        List<String> mixins = target != null ? target.complete(nanos, originalSize, transformedSize) : List.of();
+        if (mixins.isEmpty()) {
+            // Transformed without any mixin applying, e.g. a target of a wildcard or a skipped mixin
+            unattributedNanos.add(nanos);
+            return;
+        }
+
+        int count = mixins.size();
+        long growth = transformedSize - originalSize;
+        Set<String> targetOrigins = new LinkedHashSet<>();
+
+        for (int i = 0; i < count; i++) {
+            String mixin = mixins.get(i);
+            // The first mixin takes the remainder, so the shares add up to the whole
+            long nanosShare = nanos / count + (i == 0 ? nanos % count : 0);
+            long growthShare = growth / count + (i == 0 ? growth % count : 0);
+
+            String origin = originOf(mixin);
+            cost(costByMixin, mixin).add(nanosShare, growthShare, true);
+            cost(costByOrigin, origin).add(nanosShare, growthShare, targetOrigins.add(origin));
+        }
+    }
+
+    /** Counts a target whose transformed bytes came from the transform cache. */
+    void recordCached() {
+        cached.increment();
+    }
+
+    /**
+     * Logs the summary and writes the report once startup has settled, as signalled by {@link
+     * HyinitClassLoader#onStartupIdle(Runnable)}.
+     */
+    public void summarizeAfterStartup(HyinitClassLoader classLoader, Path workingDir) {
+        classLoader.onStartupIdle(() -> {
+            getSummary().lines().forEach(LOGGER::info);
+            write(workingDir);
+        });
+    }
+
+    /** Writes the full report, listing every target with the mixins applied to it. */
+    public void write(Path workingDir) {
+        Path file = workingDir.resolve(System.getProperty(FILE_PROPERTY, DEFAULT_FILE));
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                JsonWriter json = new JsonWriter(writer);
+                json.setIndent("  ");
+                writeReport(json);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Failed to write Mixin audit report " + file, e);
+        }
+    }
+
+    private void writeReport(JsonWriter json) throws IOException {
+        json.beginObject();
+        json.name("appliedMixins").value(applied.sum());
+        json.name("cachedTargets").value(cached.sum());
+        json.name("unattributedTransformNanos").value(unattributedNanos.sum());
+
+        json.name("origins").beginArray();
+        for (Map.Entry<String, Cost> entry : sortedByTime(costByOrigin)) {
+            Path path = findOriginPath(entry.getKey());
+            json.beginObject();
+            json.name("name").value(entry.getKey());
+            if (path != null) {
+                json.name("path").value(path.toString());
+            }
+            writeCost(json, entry.getValue());
+            json.endObject();
+        }
+        json.endArray();
+
+        json.name("mixins").beginArray();
+        for (Map.Entry<String, Cost> entry : sortedByTime(costByMixin)) {
+            json.beginObject();
+            json.name("name").value(entry.getKey());
+            json.name("origin").value(originOf(entry.getKey()));
+            writeCost(json, entry.getValue());
+            json.endObject();
+        }
+        json.endArray();
+
+        json.name("targets").beginArray();
+        for (Map.Entry<String, Target> entry : sortedTargets(target -> target.nanos)) {
+            Target target = entry.getValue();
+            json.beginObject();
+            json.name("name").value(entry.getKey());
+            json.name("transformNanos").value(target.nanos);
+            json.name("originalSize").value(target.originalSize);
+            json.name("transformedSize").value(target.transformedSize);
+            json.name("mixins").beginArray();
+            for (String mixin : target.mixins()) {
+                json.value(mixin);
+            }
+            json.endArray();
+            json.endObject();
+        }
+        json.endArray();
+
+        json.name("postProcessed").beginArray();
+        for (String name : new TreeSet<>(postProcessed)) {
+            json.value(name);
+        }
+        json.endArray();
+
+        json.name("generated").beginObject();
+        for (Map.Entry<String, String> entry : new TreeMap<>(generated).entrySet()) {
+            json.name(entry.getKey()).value(entry.getValue());
+        }
+        json.endObject();
+
+        json.endObject();
+        json.flush();
+    }
+
+    private static void writeCost(JsonWriter json, Cost cost) throws IOException {
+        json.name("transformNanos").value(cost.nanos.sum());
+        json.name("bytecodeGrowth").value(cost.growth.sum());
+        json.name("applications").value(cost.applications.sum());
+        json.name("targets").value(cost.targets.sum());
+    }
+
+    @Override
+    public long getAppliedMixins() {
+        return applied.sum();
+    }
+
+    @Override
+    public int getTransformedTargets() {
+        return targets.size();
+    }
+
+    @Override
+    public long getCachedTargets() {
+        return cached.sum();
+    }
+
+    @Override
+    public long getPostProcessedClasses() {
+        return postProcessed.size();
+    }
+
+    @Override
+    public long getGeneratedClasses() {
+        return generated.size();
+    }
+
+    @Override
+    public Map<String, Long> getTransformTimeMillisByOrigin() {
+        return sum(costByOrigin, cost -> TimeUnit.NANOSECONDS.toMillis(cost.nanos.sum()));
+    }
+
+    @Override
+    public Map<String, Long> getBytecodeGrowthByOrigin() {
+        return sum(costByOrigin, cost -> cost.growth.sum());
+    }
+
+    @Override
+    public Map<String, Long> getAppliedMixinsByOrigin() {
+        return sum(costByOrigin, cost -> cost.applications.sum());
+    }
+
+    @Override
+    public List<String> getMixinsOf(String target) {
+        Target record = targets.get(target.replace('/', '.'));
+        return record != null ? record.mixins() : List.of();
+    }
+
+    @Override
+    public String getSummary() {
+        long totalNanos = unattributedNanos.sum();
+        long totalGrowth = 0;
+        for (Cost cost : costByOrigin.values()) {
+            totalNanos += cost.nanos.sum();
+            totalGrowth += cost.growth.sum();
+        }
+
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format(
+                "Mixin audit: %d application(s) on %d target(s), %.1f ms in the transformer, %+d byte(s), "
+                        + "%d cached, %d post-processed, %d generated",
+                applied.sum(),
+                targets.size(),
+                totalNanos / 1e6,
+                totalGrowth,
+                cached.sum(),
+                postProcessed.size(),
+                generated.size()));
+
+        summary.append("\nBy origin:");
+        for (Map.Entry<String, Cost> entry : limit(sortedByTime(costByOrigin))) {
+            Cost cost = entry.getValue();
+            summary.append(String.format(
+                    "\n  - %s: %.1f ms, %+d byte(s), %d application(s) on %d target(s)",
+                    entry.getKey(),
+                    cost.nanos.sum() / 1e6,
+                    cost.growth.sum(),
+                    cost.applications.sum(),
+                    cost.targets.sum()));
+        }
+
+        summary.append("\nSlowest targets:");
+        for (Map.Entry<String, Target> entry : limit(sortedTargets(target -> target.nanos))) {
+            appendTarget(summary, entry.getKey(), entry.getValue());
+        }
+
+        summary.append("\nLargest growth:");
+        for (Map.Entry<String, Target> entry :
+                limit(sortedTargets(target -> target.transformedSize - target.originalSize))) {
+            appendTarget(summary, entry.getKey(), entry.getValue());
+        }
+
+        return summary.toString();
+    }
+
+    private static void appendTarget(StringBuilder summary, String name, Target target) {
+        summary.append(String.format(
+                "\n  - %s: %.1f ms, %d -> %d byte(s), %d mixin(s)",
+                name, target.nanos / 1e6, target.originalSize, target.transformedSize, target.mixins().size()));
+    }
+
+    /**
+     * Returns the file name of the jar the mixin's config was found in, or the config name for
+     * configs that do not come from an earlyplugin.
+     */
+    private String originOf(String mixinName) {
+        // Mixin names its mixins "config:class"
+        int separator = mixinName.indexOf(':');
+        String config = separator > 0 ? mixinName.substring(0, separator) : mixinName;
+        Path path = origins.get(config);
+        return path != null ? path.getFileName().toString() : config;
+    }
+
+    private Path findOriginPath(String origin) {
+        for (Path path : origins.values()) {
+            if (path.getFileName().toString().equals(origin)) {
+                return path;
+            }
+        }
+        return null;
+    }
+
+    private <T> List<T> limit(List<T> entries) {
+        return entries.size() > top ? entries.subList(0, top) : entries;
+    }
+
+    private static List<Map.Entry<String, Cost>> sortedByTime(Map<String, Cost> costs) {
+        List<Map.Entry<String, Cost>> entries = new ArrayList<>(costs.entrySet());
+        entries.sort(Comparator.comparingLong((Map.Entry<String, Cost> entry) ->
+                        entry.getValue().nanos.sum())
+                .reversed());
+        return entries;
+    }
+
+    private List<Map.Entry<String, Target>> sortedTargets(ToLongFunction<Target> key) {
+        List<Map.Entry<String, Target>> entries = new ArrayList<>();
+        for (Map.Entry<String, Target> entry : targets.entrySet()) {
+            if (entry.getValue().completed) {
+                entries.add(entry);
+            }
+        }
+        entries.sort(Comparator.comparingLong((Map.Entry<String, Target> entry) -> key.applyAsLong(entry.getValue()))
+                .reversed());
+        return entries;
+    }
+
+    private static Map<String, Long> sum(Map<String, Cost> costs, ToLongFunction<Cost> value) {
+        Map<String, Long> result = new TreeMap<>();
+        costs.forEach((name, cost) -> result.put(name, value.applyAsLong(cost)));
+        return result;
+    }
+
+    private static Cost cost(Map<String, Cost> costs, String name) {
+        return costs.computeIfAbsent(name, key -> new Cost());
+    }
+
+    private static final class Target {
+        private final List<String> mixins = new ArrayList<>();
+        private volatile boolean completed;
+        private long nanos;
+        private int originalSize;
+        private int transformedSize;
+
+        synchronized void addMixin(String mixin) {
+            mixins.add(mixin);
+        }
+
+        synchronized List<String> complete(long nanos, int originalSize, int transformedSize) {
+            this.nanos = nanos;
+            this.originalSize = originalSize;
+            this.transformedSize = transformedSize;
+            completed = true;
+            return List.copyOf(mixins);
+        }
+
+        synchronized List<String> mixins() {
+            return List.copyOf(mixins);
+        }
+    }
+
+    private static final class Cost {
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder growth = new LongAdder();
+        private final LongAdder applications = new LongAdder();
+        private final LongAdder targets = new LongAdder();
+
+        void add(long nanos, long growth, boolean newTarget) {
+            this.nanos.add(nanos);
+            this.growth.add(growth);
+            if (newTarget) {
+                targets.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package cc.irori.hyinit.mixin;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What Mixin did to the classes of {@link HyinitClassLoader}, registered on the platform MBean
+ * server as {@value #OBJECT_NAME} when {@value MixinAuditTrail#ENABLED_PROPERTY} is set.
+ *
+ * <p>Origins are the earlyplugin jars the Mixin configs were found in. The transform time and size
+ * change of a target are split evenly between the mixins applied to it.
+ */
+public interface MixinAuditTrailMXBean {
+
+    String OBJECT_NAME = "cc.irori.hyinit:type=MixinAuditTrail";
+
+    /** Number of times a mixin was applied to a target. */
+    long getAppliedMixins();
+
+    /** Number of targets that at least one mixin was applied to. */
+    int getTransformedTargets();
+
+    /** Number of transformed targets taken from the transform cache, without applying mixins. */
+    long getCachedTargets();
+
+    long getPostProcessedClasses();
+
+    long getGeneratedClasses();
+
+    /** Time spent in the Mixin transformer per origin, in milliseconds. */
+    Map<String, Long> getTransformTimeMillisByOrigin();
+
+    /** Bytes added to class files per origin. Negative if its mixins shrink their targets. */
+    Map<String, Long> getBytecodeGrowthByOrigin();
+
+    /** Number of mixin applications per origin. */
+    Map<String, Long> getAppliedMixinsByOrigin();
+
+    /** Returns the mixins applied to a target, as {@code config:mixin}. */
+    List<String> getMixinsOf(String target);
+
+    /** The summary also logged once startup has settled. */
+    String getSummary();
+}
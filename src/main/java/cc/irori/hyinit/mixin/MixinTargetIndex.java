@@ -0,0 +1,279 @@
+package cc.irori.hyinit.mixin;
+
+import static cc.irori.hyinit.util.JsonUtil.readStringOrStringArray;
+
+import cc.irori.hyinit.HyinitLogger;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.spongepowered.asm.mixin.Mixins;
+import org.spongepowered.asm.mixin.transformer.Config;
+
+/**
+ * Set of classes that have to go through the Mixin transformer.
+ *
+ * <p>The index is built from the registered Mixin configs by reading the {@code @Mixin} annotation
+ * of every listed mixin class. Classes in a mixin package always go through the transformer, so
+ * Mixin can keep rejecting direct references to them. The index errs on the side of transforming:
+ *
+ * <ul>
+ *   <li>configs with a config plugin, which may add mixins at runtime, have every class of their
+ *       mixin package scanned rather than only the listed ones;
+ *   <li>a wildcard target, an unreadable config or mixin class, or a config registered after the
+ *       index was built disables the index, so every class is transformed as before.
+ * </ul>
+ *
+ * <p>Late registrations are recognized by name: Mixin removes configs from its registered set once
+ * they are selected, so that set shrinking is expected and only a config the index does not know
+ * disables it.
+ */
+public final class MixinTargetIndex {
+
+    private static final String MIXIN_DESCRIPTOR = "Lorg/spongepowered/asm/mixin/Mixin;";
+
+    private final Set<String> targets;
+    private final List<String> mixinPackages;
+    private final Set<String> indexedConfigs;
+    private final Set<?> registeredConfigs;
+    private final Function<Object, String> configName;
+    private volatile boolean complete;
+
+    private final LongAdder bypassed = new LongAdder();
+
+    MixinTargetIndex(
+            Set<String> targets,
+            List<String> mixinPackages,
+            Set<String> indexedConfigs,
+            Set<?> registeredConfigs,
+            Function<Object, String> configName,
+            boolean complete) {
+        this.targets = targets;
+        this.mixinPackages = mixinPackages;
+        this.indexedConfigs = indexedConfigs;
+        this.registeredConfigs = registeredConfigs;
+        this.configName = configName;
+        this.complete = complete;
+    }
+
+    public static MixinTargetIndex build(HyinitClassLoader classLoader, List<String> configs) {
+        Set<String> targets = new HashSet<>();
+        Set<String> mixinPackages = new HashSet<>();
+        boolean complete = true;
+
+        for (String config : configs) {
+            try {
+                complete &= indexConfig(classLoader, config, targets, mixinPackages);
+            } catch (Exception e) {
+                HyinitLogger.get()
+                        .warn("Failed to index Mixin config " + config + ", every class will be transformed", e);
+                complete = false;
+            }
+        }
+
+        // Mixin keeps registered configs in this set until they are selected, holding on to it lets
+        // every class load check for late registrations without going through the global properties
+        return new MixinTargetIndex(
+                Collections.unmodifiableSet(targets),
+                List.copyOf(mixinPackages),
+                Set.copyOf(configs),
+                Mixins.getConfigs(),
+                config -> ((Config) config).getName(),
+                complete);
+    }
+
+    /**
+     * Returns {@code true} if the class may be affected by a mixin and has to be passed to the
+     * transformer.
+     */
+    public boolean isTarget(String name) {
+        if (!complete) {
+            return true;
+        }
+
+        if (hasUnindexedConfig()) {
+            HyinitLogger.get().warn("Mixin configs were added after startup, disabling the Mixin target index");
+            complete = false;
+            return true;
+        }
+
+        if (targets.contains(name)) {
+            return true;
+        }
+
+        for (String mixinPackage : mixinPackages) {
+            if (name.startsWith(mixinPackage)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean hasUnindexedConfig() {
+        if (registeredConfigs.isEmpty()) {
+            // Every config was selected, which is the case for nearly all class loads
+            return false;
+        }
+
+        try {
+            for (Object config : registeredConfigs) {
+                if (!indexedConfigs.contains(configName.apply(config))) {
+                    return true;
+                }
+            }
+        } catch (ConcurrentModificationException e) {
+            // Mixin is selecting configs on another thread, look again on the next class
+        }
+        return false;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public Set<String> targets() {
+        return targets;
+    }
+
+    public List<String> mixinPackages() {
+        return mixinPackages;
+    }
+
+    void recordBypass() {
+        bypassed.increment();
+    }
+
+    public Stats stats() {
+        return new Stats(complete, targets.size(), mixinPackages.size(), bypassed.sum());
+    }
+
+    private static boolean indexConfig(
+            HyinitClassLoader classLoader, String config, Set<String> targets, Set<String> mixinPackages)
+            throws IOException {
+        JsonObject root;
+        try (InputStream in = classLoader.getResourceAsStream(config)) {
+            if (in == null) {
+                throw new IOException("Mixin config not found");
+            }
+
+            try (Reader r = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                JsonElement el = JsonParser.parseReader(r);
+                if (!el.isJsonObject()) {
+                    throw new IOException("Mixin config is not a JSON object");
+                }
+                root = el.getAsJsonObject();
+            }
+        }
+
+        if (!root.has("package")) {
+            throw new IOException("Mixin config does not declare a package");
+        }
+
+        String mixinPackage = root.get("package").getAsString();
+        mixinPackages.add(mixinPackage + ".");
+
+        List<String> mixinClasses = new ArrayList<>();
+        if (root.has("plugin")) {
+            // The plugin may add mixins of its package that are not listed in the config
+            for (String name : classLoader.getCodeSourceIndex().listClasses(mixinPackage)) {
+                mixinClasses.add(name);
+            }
+        } else {
+            for (String key : List.of("mixins", "server", "client")) {
+                for (String mixin : readStringOrStringArray(root.get(key))) {
+                    mixinClasses.add(mixinPackage + "." + mixin);
+                }
+            }
+        }
+
+        boolean complete = true;
+        for (String mixinClass : mixinClasses) {
+            // Left in the bytecode cache for Mixin, which reads every mixin class when preparing its config
+            byte[] bytes = classLoader.getCachedClassBytes(mixinClass);
+            if (bytes == null) {
+                throw new IOException("Mixin class " + mixinClass + " not found");
+            }
+
+            for (String target : readMixinTargets(bytes)) {
+                if (target.indexOf('*') >= 0) {
+                    HyinitLogger.get()
+                            .warn(String.format(
+                                    "Mixin %s uses the wildcard target %s, every class will be transformed",
+                                    mixinClass, target));
+                    complete = false;
+                }
+                targets.add(target);
+            }
+        }
+
+        return complete;
+    }
+
+    private static Set<String> readMixinTargets(byte[] bytes) {
+        Set<String> targets = new HashSet<>();
+
+        AnnotationVisitor targetVisitor = new AnnotationVisitor(Opcodes.ASM9) {
+            @Override
+            public void visit(String name, Object value) {
+                if (value instanceof Type type) {
+                    targets.add(type.getClassName());
+                } else if (value instanceof String target) {
+                    targets.add(target.replace('/', '.'));
+                }
+            }
+        };
+
+        new ClassReader(bytes)
+                .accept(
+                        new ClassVisitor(Opcodes.ASM9) {
+                            @Override
+                            public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+                                if (!MIXIN_DESCRIPTOR.equals(descriptor)) {
+                                    return null;
+                                }
+
+                                return new AnnotationVisitor(Opcodes.ASM9) {
+                                    @Override
+                                    public AnnotationVisitor visitArray(String name) {
+                                        // Both "value" (classes) and "targets" (names) are arrays
+                                        return targetVisitor;
+                                    }
+                                };
+                            }
+                        },
+                        ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+
+        return targets;
+    }
+
+    public record Stats(boolean complete, int targets, int mixinPackages, long bypassed) {
+
+        @Override
+        public String toString() {
+            if (!complete) {
+                return "disabled, every class is transformed";
+            }
+            return String.format(
+                    "%d target(s) in %d mixin package(s), %d transformer call(s) avoided",
+                    targets, mixinPackages, bypassed);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package cc.irori.hyinit.mixin;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers class names that could not be found by {@link HyinitClassLoader}, so repeated probes
+ * for optional classes fail without walking the code sources, the parent and the platform loader
+ * again.
+ *
+ * <p>Misses are tied to a generation that changes whenever a code source is added. A lookup that
+ * started before a code source was added never records its miss, as the new code source may
+ * contain the class.
+ */
+final class NegativeLookupCache {
+
+    private static final int MAX_MISSING = 16 * 1024;
+
+    private final Set<String> missing = ConcurrentHashMap.newKeySet();
+    private final Set<String> invalid = ConcurrentHashMap.newKeySet();
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+
+    boolean isKnownMissing(String name) {
+        if (missing.contains(name) || invalid.contains(name)) {
+            hits.increment();
+            return true;
+        }
+        return false;
+    }
+
+    long generation() {
+        return generation.get();
+    }
+
+    void addMissing(String name, long lookupGeneration) {
+        if (missing.size() >= MAX_MISSING) {
+            missing.clear();
+        }
+
+        missing.add(name);
+        if (generation.get() != lookupGeneration) {
+            missing.remove(name);
+        }
+    }
+
+    /**
+     * Marks a class that Mixin reported as invalid. Invalid classes stay unloadable regardless of
+     * code sources added later.
+     */
+    void addInvalid(String name) {
+        invalid.add(name);
+    }
+
+    void invalidate() {
+        generation.incrementAndGet();
+        missing.clear();
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    int size() {
+        return missing.size() + invalid.size();
+    }
+}
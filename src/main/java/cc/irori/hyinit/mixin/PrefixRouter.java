@@ -0,0 +1,128 @@
+package cc.irori.hyinit.mixin;
+
+import java.util.Arrays;
+
+/**
+ * Immutable prefix trie deciding how {@link HyinitClassLoader} handles a class name.
+ *
+ * <p>A name is matched against all prefixes in a single pass over its characters, and the route
+ * of the longest matching prefix wins. Delegating routes are the exception: once a {@link
+ * Route#PARENT} or {@link Route#PLATFORM} prefix matches, longer prefixes are not considered, so
+ * classes the loader must never define itself cannot be claimed by a more specific prefix.
+ */
+final class PrefixRouter {
+
+    enum Route {
+        /** Loaded and transformed by {@link HyinitClassLoader}. */
+        DEFAULT,
+        /** Loaded by {@link HyinitClassLoader} without going through Mixin. */
+        NO_TRANSFORM,
+        /** Delegated to the loader of Hyinit itself. */
+        PARENT,
+        /** Delegated to the platform class loader. */
+        PLATFORM
+    }
+
+    private final Node root;
+
+    private PrefixRouter(Node root) {
+        this.root = root;
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    Route route(String name) {
+        Route route = Route.DEFAULT;
+        Node node = root;
+
+        for (int i = 0, length = name.length(); i < length; i++) {
+            node = node.child(name.charAt(i));
+            if (node == null) {
+                break;
+            }
+            if (node.route != null) {
+                route = node.route;
+                if (route == Route.PARENT || route == Route.PLATFORM) {
+                    break;
+                }
+            }
+        }
+
+        return route;
+    }
+
+    static final class Builder {
+
+        private final Node root = new Node();
+
+        private Builder() {}
+
+        Builder add(String prefix, Route route) {
+            Node node = root;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.getOrAddChild(prefix.charAt(i));
+            }
+            node.route = route;
+            return this;
+        }
+
+        Builder addAll(Iterable<String> prefixes, Route route) {
+            for (String prefix : prefixes) {
+                add(prefix, route);
+            }
+            return this;
+        }
+
+        PrefixRouter build() {
+            return new PrefixRouter(root.copy());
+        }
+    }
+
+    private static final class Node {
+
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private Route route;
+
+        Node child(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node getOrAddChild(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            if (index >= 0) {
+                return children[index];
+            }
+
+            int insertAt = -index - 1;
+            Node child = new Node();
+
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newKeys[insertAt] = c;
+            newChildren[insertAt] = child;
+            System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+
+        Node copy() {
+            Node copy = new Node();
+            copy.keys = keys.clone();
+            copy.children = new Node[children.length];
+            for (int i = 0; i < children.length; i++) {
+                copy.children[i] = children[i].copy();
+            }
+            copy.route = route;
+            return copy;
+        }
+    }
+}
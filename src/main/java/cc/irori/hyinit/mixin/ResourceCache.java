@@ -0,0 +1,81 @@
+package cc.irori.hyinit.mixin;
+
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of resource lookups of {@link HyinitClassLoader}, remembering which loader a
+ * resource was found in, or that it was not found at all.
+ *
+ * <p>Adding a code source can change the answer for any name, so it clears the cache. Like
+ * {@link NegativeLookupCache}, entries are tied to a generation so a lookup that raced with a
+ * newly added code source is not stored.
+ */
+final class ResourceCache {
+
+    private static final int MAX_ENTRIES = 4096;
+
+    static final Entry MISSING = new Entry(null, false);
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Returns {@code true} for resources worth caching. Class files are read through the code
+     * source index when their class is loaded and are not looked up by name repeatedly.
+     */
+    static boolean isCacheable(String name) {
+        return !name.endsWith(".class");
+    }
+
+    Entry get(String name) {
+        Entry entry = entries.get(name);
+        (entry != null ? hits : misses).increment();
+        return entry;
+    }
+
+    long generation() {
+        return generation.get();
+    }
+
+    void put(String name, Entry entry, long lookupGeneration) {
+        if (entries.size() >= MAX_ENTRIES) {
+            entries.clear();
+        }
+
+        entries.put(name, entry);
+        if (generation.get() != lookupGeneration) {
+            entries.remove(name);
+        }
+    }
+
+    void invalidate() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * @param url the resource URL, or {@code null} if the resource does not exist
+     * @param fromCodeSource whether the resource was found in the code sources rather than the
+     *     parent loader
+     */
+    record Entry(URL url, boolean fromCodeSource) {}
+}
@@ -0,0 +1,17 @@
+package cc.irori.hyinit.mixin;
+
+/**
+ * {@link ClassNotFoundException} without a stack trace, for misses that are answered from a cache
+ * and are expected to happen often.
+ */
+final class StacklessClassNotFoundException extends ClassNotFoundException {
+
+    StacklessClassNotFoundException(String name) {
+        super(name);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,397 @@
+package cc.irori.hyinit.mixin;
+
+import cc.irori.hyinit.ConfigCollector;
+import cc.irori.hyinit.HyinitLogger;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Persistent cache of post-Mixin class bytes.
+ *
+ * <p>Entries live in a directory named after a fingerprint of every input that can influence the
+ * transformer's output (code source jars, Mixin configs, Mixin system properties). Any change to
+ * those inputs selects a new directory, and stale ones are deleted when the cache is opened. Each
+ * entry additionally records the hash of the original class bytes, so an entry is only used when
+ * the class on disk is byte-for-byte the one it was produced from.
+ *
+ * <p>Classes Mixin generates are never cached, and neither are targets that refer to them: their
+ * names come from counters that restart on every run, so a cached target could not be matched with
+ * the generated class it was transformed against.
+ */
+public final class TransformCache {
+
+    public static final String ENABLED_PROPERTY = "hyinit.transformCache";
+    public static final String DIRECTORY_PROPERTY = "hyinit.transformCache.dir";
+    public static final String MAX_SIZE_PROPERTY = "hyinit.transformCache.maxSizeMb";
+
+    private static final String DEFAULT_DIRECTORY = ".hyinit/transform-cache";
+    private static final long DEFAULT_MAX_SIZE_MB = 256;
+
+    private static final int MAGIC = 0x48594331; // "HYC1"
+    private static final int VERSION = 2;
+
+    private static final byte KIND_TRANSFORMED = 0;
+    private static final byte KIND_PASSTHROUGH = 1;
+
+    private static final String ENTRY_SUFFIX = ".bin";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final long maxSize;
+
+    private final Set<String> entries = ConcurrentHashMap.newKeySet();
+    private final AtomicLong size = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Hyinit Transform Cache Writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean closed;
+
+    private TransformCache(Path directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    public static TransformCache open(Path workingDir, ConfigCollector.Result configs, Collection<Path> codeSources)
+            throws IOException {
+        Path root = workingDir.resolve(System.getProperty(DIRECTORY_PROPERTY, DEFAULT_DIRECTORY));
+        long maxSize = Long.getLong(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE_MB) * 1024 * 1024;
+
+        return open(root, fingerprint(configs, codeSources), maxSize);
+    }
+
+    static TransformCache open(Path root, String fingerprint, long maxSize) throws IOException {
+        Files.createDirectories(root);
+
+        TransformCache cache = new TransformCache(root.resolve(fingerprint), maxSize);
+        cache.evictStaleFingerprints(root, fingerprint);
+
+        Files.createDirectories(cache.directory);
+        cache.loadEntries();
+        return cache;
+    }
+
+    /**
+     * Computes a fingerprint of everything the transformer output depends on besides the class
+     * itself. Jars are identified by path, size and modification time rather than by content, so
+     * computing the fingerprint does not require reading them.
+     */
+    static String fingerprint(ConfigCollector.Result configs, Collection<Path> codeSources) throws IOException {
+        MessageDigest digest = sha256();
+        update(digest, "version:" + VERSION);
+        update(digest, "java:" + Runtime.version().feature());
+
+        for (Path path : codeSources.stream().sorted().toList()) {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            update(digest, "source:" + path);
+            update(digest, attributes.size() + ":" + attributes.lastModifiedTime().toMillis());
+        }
+
+        for (String config : configs.configs()) {
+            update(digest, "config:" + config + "@" + configs.origins().get(config));
+        }
+
+        Map<String, String> mixinProperties = new TreeMap<>();
+        System.getProperties().forEach((key, value) -> {
+            if (key.toString().startsWith("mixin.")) {
+                mixinProperties.put(key.toString(), String.valueOf(value));
+            }
+        });
+        mixinProperties.forEach((key, value) -> update(digest, "property:" + key + "=" + value));
+
+        return HexFormat.of().formatHex(digest.digest(), 0, 16);
+    }
+
+    public byte[] get(String name, byte[] original) {
+        Entry entry = read(name);
+        if (entry == null || !Arrays.equals(entry.originalHash(), hash(original))) {
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        return entry.kind() == KIND_PASSTHROUGH ? original : entry.bytes();
+    }
+
+    public void put(String name, byte[] original, byte[] transformed) {
+        boolean passthrough = transformed == original || Arrays.equals(original, transformed);
+        write(
+                name,
+                passthrough ? KIND_PASSTHROUGH : KIND_TRANSFORMED,
+                hash(original),
+                passthrough ? new byte[0] : transformed);
+    }
+
+    public Stats stats() {
+        return new Stats(
+                hits.sum(), misses.sum(), writes.sum(), rejected.sum(), evictions.sum(), entries.size(), size.get());
+    }
+
+    /**
+     * Waits for pending writes to complete. Entries that were not written yet are simply missing
+     * on the next start. Classes are still loaded while shutdown hooks run, so later puts are
+     * dropped rather than failing.
+     */
+    public void close() {
+        closed = true;
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+                HyinitLogger.get().warn("Timed out while flushing the transform cache");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Entry read(String name) {
+        String key = key(name);
+        if (!entries.contains(key)) {
+            return null;
+        }
+
+        Path file = directory.resolve(key + ENTRY_SUFFIX);
+        try (InputStream in = Files.newInputStream(file);
+                DataInputStream data = new DataInputStream(in)) {
+            if (data.readInt() != MAGIC) {
+                throw new IOException("Bad magic");
+            }
+
+            byte kind = data.readByte();
+            String entryName = data.readUTF();
+            byte[] originalHash = data.readNBytes(32);
+            byte[] bytes = data.readNBytes(data.readInt());
+            long checksum = data.readLong();
+
+            if (!entryName.equals(name) || checksum(kind, originalHash, bytes) != checksum) {
+                throw new IOException("Corrupted entry");
+            }
+
+            return new Entry(kind, originalHash, bytes);
+        } catch (IOException e) {
+            HyinitLogger.get().warn("Discarding unreadable transform cache entry for " + name, e);
+            delete(key, file);
+            return null;
+        }
+    }
+
+    private void write(String name, byte kind, byte[] originalHash, byte[] bytes) {
+        String key = key(name);
+        if (closed || entries.contains(key)) {
+            return;
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytes.length + 128);
+        try (DataOutputStream data = new DataOutputStream(buffer)) {
+            data.writeInt(MAGIC);
+            data.writeByte(kind);
+            data.writeUTF(name);
+            data.write(originalHash);
+            data.writeInt(bytes.length);
+            data.write(bytes);
+            data.writeLong(checksum(kind, originalHash, bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        byte[] serialized = buffer.toByteArray();
+        if (size.addAndGet(serialized.length) > maxSize) {
+            size.addAndGet(-serialized.length);
+            rejected.increment();
+            return;
+        }
+
+        entries.add(key);
+        try {
+            writer.execute(() -> writeEntry(name, key, serialized));
+        } catch (RejectedExecutionException e) {
+            // Closed after the check above
+            entries.remove(key);
+            size.addAndGet(-serialized.length);
+        }
+    }
+
+    private void writeEntry(String name, String key, byte[] serialized) {
+        // Write to a temporary file and move it into place, so a crash never leaves a partial
+        // entry under the final name.
+        Path file = directory.resolve(key + ENTRY_SUFFIX);
+        Path temp = directory.resolve(key + TEMP_SUFFIX);
+        try {
+            Files.write(temp, serialized);
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            writes.increment();
+        } catch (IOException e) {
+            HyinitLogger.get().warn("Failed to write transform cache entry for " + name, e);
+            entries.remove(key);
+            size.addAndGet(-serialized.length);
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void loadEntries() throws IOException {
+        List<CachedFile> files = new ArrayList<>();
+
+        try (Stream<Path> s = Files.list(directory)) {
+            for (Path file : s.toList()) {
+                String fileName = file.getFileName().toString();
+
+                if (fileName.endsWith(TEMP_SUFFIX)) {
+                    // Left behind by an interrupted write
+                    Files.deleteIfExists(file);
+                } else if (fileName.endsWith(ENTRY_SUFFIX)) {
+                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    files.add(new CachedFile(
+                            file,
+                            fileName.substring(0, fileName.length() - ENTRY_SUFFIX.length()),
+                            attributes.size(),
+                            attributes.lastModifiedTime().toMillis()));
+                }
+            }
+        }
+
+        long total = files.stream().mapToLong(CachedFile::size).sum();
+        if (total > maxSize) {
+            // Evict the oldest entries until the cache is comfortably below its cap again
+            files.sort(Comparator.comparingLong(CachedFile::lastModified));
+            long target = maxSize - maxSize / 10;
+
+            while (total > target && !files.isEmpty()) {
+                CachedFile oldest = files.removeFirst();
+                Files.deleteIfExists(oldest.path());
+                total -= oldest.size();
+                evictions.increment();
+            }
+        }
+
+        for (CachedFile file : files) {
+            entries.add(file.key());
+        }
+        size.set(total);
+    }
+
+    private void evictStaleFingerprints(Path root, String fingerprint) throws IOException {
+        try (Stream<Path> s = Files.list(root)) {
+            for (Path child : s.toList()) {
+                if (Files.isDirectory(child) && !child.getFileName().toString().equals(fingerprint)) {
+                    deleteRecursively(child);
+                }
+            }
+        }
+    }
+
+    private void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> s = Files.walk(dir)) {
+            for (Path path : s.sorted(Comparator.reverseOrder()).toList()) {
+                if (Files.isRegularFile(path) && path.getFileName().toString().endsWith(ENTRY_SUFFIX)) {
+                    evictions.increment();
+                }
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private void delete(String key, Path file) {
+        if (entries.remove(key)) {
+            try {
+                size.addAndGet(-Files.size(file));
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static String key(String name) {
+        // Class names are hashed so that names differing only in case do not collide on
+        // case-insensitive file systems.
+        return HexFormat.of().formatHex(sha256().digest(name.getBytes(StandardCharsets.UTF_8)), 0, 20);
+    }
+
+    private static byte[] hash(byte[] bytes) {
+        return sha256().digest(bytes);
+    }
+
+    private static long checksum(byte kind, byte[] originalHash, byte[] bytes) {
+        CRC32C crc = new CRC32C();
+        crc.update(kind);
+        crc.update(originalHash);
+        crc.update(bytes);
+        return crc.getValue();
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public record Stats(
+            long hits, long misses, long writes, long rejected, long evictions, int entries, long sizeBytes) {
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "%d hit(s), %d miss(es), %d write(s), %d rejected, %d evicted, %d entries (%d KiB)",
+                    hits, misses, writes, rejected, evictions, entries, sizeBytes / 1024);
+        }
+    }
+
+    private record Entry(byte kind, byte[] originalHash, byte[] bytes) {}
+
+    private record CachedFile(Path path, String key, long size, long lastModified) {}
+}
@@ -21,6 +21,11 @@ public class MixinLateMain {
     private static final Method hyinit$ENABLE_DELEGATE_METHOD =
             ReflectionUtil.getDeclaredMethod(hyinit$HYINIT_LOG_MANAGER, "enableDelegate", Object.class);
 
+    @Unique
+    private static final Method hyinit$ENABLE_LOGGER_DELEGATE_METHOD = ReflectionUtil.getDeclaredMethod(
+            ReflectionUtil.loadClassOrNull(ClassLoader.getSystemClassLoader(), "cc.irori.hyinit.HyinitLogger"),
+            "enableDelegate");
+
     @Inject(
             method = "lateMain",
             at =
@@ -31,4 +36,15 @@ public class MixinLateMain {
     private static void hyinit$enableLoggerDelegate(String[] args, CallbackInfo ci) {
         ReflectionUtil.invokeMethod(hyinit$ENABLE_DELEGATE_METHOD, null, new HytaleLogManager());
     }
+
+    @Inject(
+            method = "lateMain",
+            at =
+                    @At(
+                            value = "INVOKE",
+                            target = "Lcom/hypixel/hytale/logger/HytaleLogger;init()V",
+                            shift = At.Shift.AFTER))
+    private static void hyinit$replayEarlyLogs(String[] args, CallbackInfo ci) {
+        ReflectionUtil.invokeMethod(hyinit$ENABLE_LOGGER_DELEGATE_METHOD, null);
+    }
 }
@@ -1,18 +1,16 @@
 package cc.irori.hyinit.mixin.impl;
 
-import cc.irori.hyinit.shared.SourceMetaStore;
-import cc.irori.hyinit.shared.SourceMetadata;
+import cc.irori.hyinit.shared.PluginPriorityCache;
 import cc.irori.hyinit.util.LoaderUtil;
-import cc.irori.hyinit.util.UrlUtil;
 import com.hypixel.hytale.server.core.plugin.PluginClassLoader;
 import com.llamalad7.mixinextras.sugar.Local;
 import java.io.IOException;
 import java.net.URL;
 import java.net.URLClassLoader;
-import java.security.CodeSource;
 import java.util.Collections;
 import java.util.Enumeration;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.Redirect;
@@ -21,6 +19,10 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 @Mixin(PluginClassLoader.class)
 public class MixinPluginClassLoader extends URLClassLoader {
 
+    // Runs after every class this loader returns, including at runtime, so the decision is cached
+    @Unique
+    private final PluginPriorityCache hyinit$priorityCache = new PluginPriorityCache(this);
+
     public MixinPluginClassLoader(URL[] urls, ClassLoader parent) {
         super(urls, parent);
     }
@@ -35,22 +37,16 @@ public class MixinPluginClassLoader extends URLClassLoader {
             CallbackInfoReturnable<Class<?>> cir,
             @Local(ordinal = 0) Class<?> loadClass)
             throws ClassNotFoundException {
-        if (loadClass == null) return;
+        if (loadClass == null || !hyinit$priorityCache.mayPreferLocal(name, loadClass)) return;
         String fileName = LoaderUtil.getClassFileName(name);
         URL url = super.getResource(fileName);
         if (url != null) {
-            CodeSource codeSource = loadClass.getProtectionDomain().getCodeSource();
-            if (codeSource != null) {
-                SourceMetadata meta = SourceMetaStore.get(UrlUtil.asPath(codeSource.getLocation()));
-                if (meta.isEarlyPlugin()) {
-                    try {
-                        Class<?> pluginClass = super.loadClass(name, false);
-                        if (pluginClass != null) {
-                            cir.setReturnValue(pluginClass);
-                        }
-                    } catch (ClassNotFoundException ignored) {
-                    }
+            try {
+                Class<?> pluginClass = super.loadClass(name, false);
+                if (pluginClass != null) {
+                    cir.setReturnValue(pluginClass);
                 }
+            } catch (ClassNotFoundException ignored) {
             }
         }
     }
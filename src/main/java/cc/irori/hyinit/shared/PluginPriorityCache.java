@@ -0,0 +1,165 @@
+package cc.irori.hyinit.shared;
+
+import cc.irori.hyinit.util.LoaderUtil;
+import cc.irori.hyinit.util.UrlUtil;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Decides for a plugin class loader whether a class it resolved elsewhere should be replaced by
+ * its own copy, which is the case when an earlyplugin jar and the plugin jar contain the same
+ * class.
+ *
+ * <p>Whether a code source is an earlyplugin is remembered per code source location, so classes
+ * that were not loaded from an earlyplugin, which is nearly all of them, cost a single map lookup.
+ * For classes that were, the packages the plugin's own jars share with earlyplugin jars are
+ * computed once, and only classes in those packages are looked up again. Locations are kept as
+ * strings, as holding on to protection domains would keep the class loaders of unloaded plugins
+ * reachable.
+ *
+ * <p>There is one cache per plugin class loader, but the hit, miss and overlap counters are shared
+ * by all of them and count since startup.
+ */
+public final class PluginPriorityCache {
+
+    private static final Set<String> EARLY_PLUGIN_PACKAGES = ConcurrentHashMap.newKeySet();
+
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+    private static final LongAdder OVERLAPS = new LongAdder();
+
+    private final URLClassLoader classLoader;
+    private final Map<String, Boolean> earlyPluginLocations = new ConcurrentHashMap<>();
+    private volatile Set<String> overlappingPackages;
+
+    public PluginPriorityCache(URLClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * Records the packages of an earlyplugin jar, in resource form such as {@code com/example}.
+     */
+    public static void addEarlyPluginPackages(Set<String> packages) {
+        EARLY_PLUGIN_PACKAGES.addAll(packages);
+    }
+
+    /**
+     * Returns {@code true} if {@code loadedClass} comes from an earlyplugin and its package is also
+     * in one of the plugin's own jars, in which case the plugin's copy may take priority.
+     */
+    public boolean mayPreferLocal(String name, Class<?> loadedClass) {
+        CodeSource codeSource = loadedClass.getProtectionDomain().getCodeSource();
+        URL location = codeSource != null ? codeSource.getLocation() : null;
+        if (location == null) {
+            // JDK classes and the like, never one of the code sources of Hyinit
+            HITS.increment();
+            return false;
+        }
+
+        String key = location.toExternalForm();
+        Boolean earlyPlugin = earlyPluginLocations.get(key);
+        if (earlyPlugin != null) {
+            HITS.increment();
+        } else {
+            MISSES.increment();
+            earlyPlugin = isEarlyPlugin(location);
+            earlyPluginLocations.put(key, earlyPlugin);
+        }
+
+        if (!earlyPlugin) {
+            return false;
+        }
+
+        Set<String> overlapping = overlappingPackages;
+        if (overlapping == null) {
+            overlapping = computeOverlappingPackages();
+            overlappingPackages = overlapping;
+        }
+
+        int pos = name.lastIndexOf('.');
+        String packageName = pos < 0 ? "" : name.substring(0, pos).replace('.', '/');
+        if (!overlapping.contains(packageName)) {
+            return false;
+        }
+
+        OVERLAPS.increment();
+        return true;
+    }
+
+    /** Number of checks answered without resolving the code source, across all plugin loaders. */
+    public static long hits() {
+        return HITS.sum();
+    }
+
+    /** Number of checks that resolved a code source first seen, across all plugin loaders. */
+    public static long misses() {
+        return MISSES.sum();
+    }
+
+    /** Number of classes the plugin's own copy may take priority for, across all plugin loaders. */
+    public static long overlaps() {
+        return OVERLAPS.sum();
+    }
+
+    private static boolean isEarlyPlugin(URL location) {
+        SourceMetadata metadata;
+        try {
+            metadata = SourceMetaStore.get(LoaderUtil.normalizePath(UrlUtil.asPath(location)));
+        } catch (RuntimeException e) {
+            // Not a file system location, so not one of the code sources of Hyinit
+            return false;
+        }
+        return metadata != null && metadata.isEarlyPlugin();
+    }
+
+    private Set<String> computeOverlappingPackages() {
+        Set<String> overlapping = new HashSet<>();
+        for (URL url : classLoader.getURLs()) {
+            Path path;
+            try {
+                path = UrlUtil.asPath(url);
+            } catch (RuntimeException e) {
+                continue;
+            }
+            if (Files.isDirectory(path)) {
+                for (String packageName : EARLY_PLUGIN_PACKAGES) {
+                    if (Files.isDirectory(path.resolve(packageName))) {
+                        overlapping.add(packageName);
+                    }
+                }
+                continue;
+            }
+
+            try (JarFile jarFile = new JarFile(path.toFile())) {
+                Enumeration<JarEntry> entries = jarFile.entries();
+                while (entries.hasMoreElements()) {
+                    String entryName = entries.nextElement().getName();
+                    if (!entryName.endsWith(".class")) {
+                        continue;
+                    }
+
+                    int pos = entryName.lastIndexOf('/');
+                    String packageName = pos < 0 ? "" : entryName.substring(0, pos);
+                    if (EARLY_PLUGIN_PACKAGES.contains(packageName)) {
+                        overlapping.add(packageName);
+                    }
+                }
+            } catch (IOException e) {
+                // The plugin loader will fail on the jar itself, nothing to prefer from it
+            }
+        }
+        return Set.copyOf(overlapping);
+    }
+}
@@ -0,0 +1,189 @@
+package cc.irori.hyinit.trace;
+
+import cc.irori.hyinit.HyinitLogger;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records a timeline of the bootstrap and of class loading in the Chrome trace-event format, which
+ * can be opened in {@code chrome://tracing} or Perfetto.
+ *
+ * <p>Spans are recorded as complete events per thread, so spans opened while another span is
+ * still open on the same thread show up nested below it. Recording is disabled unless
+ * {@value #ENABLED_PROPERTY} is set, in which case {@link #begin} returns a span that records
+ * nothing.
+ */
+public final class StartupTrace {
+
+    public static final String ENABLED_PROPERTY = "hyinit.trace";
+    public static final String FILE_PROPERTY = "hyinit.trace.file";
+    public static final String MAX_EVENTS_PROPERTY = "hyinit.trace.maxEvents";
+
+    public static final String CATEGORY_BOOTSTRAP = "bootstrap";
+    public static final String CATEGORY_CONFIG = "config";
+    public static final String CATEGORY_CLASS_LOAD = "class";
+    public static final String CATEGORY_TRANSFORM = "transform";
+
+    private static final String DEFAULT_FILE = ".hyinit/startup-trace.json";
+    private static final int DEFAULT_MAX_EVENTS = 500_000;
+
+    private static final boolean ENABLED = Boolean.getBoolean(ENABLED_PROPERTY);
+    private static final int MAX_EVENTS = Math.max(0, Integer.getInteger(MAX_EVENTS_PROPERTY, DEFAULT_MAX_EVENTS));
+    private static final long START_NANOS = System.nanoTime();
+
+    private static final Queue<Event> EVENTS = new ConcurrentLinkedQueue<>();
+    private static final Map<Long, String> THREAD_NAMES = new ConcurrentHashMap<>();
+    private static final AtomicInteger EVENT_COUNT = new AtomicInteger();
+
+    private static final Span NOOP = new Span(null, null, null, null, 0);
+
+    private StartupTrace() {}
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    public static Span begin(String category, String name) {
+        return begin(category, name, null, null);
+    }
+
+    /**
+     * Opens a span with one argument shown in the details of the event.
+     */
+    public static Span begin(String category, String name, String argName, String argValue) {
+        if (!ENABLED || EVENT_COUNT.get() >= MAX_EVENTS) {
+            return NOOP;
+        }
+        return new Span(category, name, argName, argValue, System.nanoTime());
+    }
+
+    /**
+     * Writes the events recorded so far to the trace file.
+     */
+    public static void write(Path workingDir) {
+        if (!ENABLED) {
+            return;
+        }
+
+        Path file = workingDir.resolve(System.getProperty(FILE_PROPERTY, DEFAULT_FILE));
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writeEvents(new JsonWriter(writer));
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            HyinitLogger.get().info(String.format("Wrote %d trace event(s) to %s", EVENTS.size(), file));
+        } catch (IOException e) {
+            HyinitLogger.get().warn("Failed to write startup trace " + file, e);
+        }
+    }
+
+    private static void writeEvents(JsonWriter json) throws IOException {
+        long pid = ProcessHandle.current().pid();
+
+        json.beginObject();
+        json.name("displayTimeUnit").value("ms");
+        json.name("traceEvents").beginArray();
+
+        for (Map.Entry<Long, String> thread : THREAD_NAMES.entrySet()) {
+            json.beginObject();
+            json.name("name").value("thread_name");
+            json.name("ph").value("M");
+            json.name("pid").value(pid);
+            json.name("tid").value(thread.getKey());
+            json.name("args").beginObject().name("name").value(thread.getValue()).endObject();
+            json.endObject();
+        }
+
+        for (Event event : EVENTS) {
+            json.beginObject();
+            json.name("name").value(event.name);
+            json.name("cat").value(event.category);
+            json.name("ph").value("X");
+            json.name("pid").value(pid);
+            json.name("tid").value(event.threadId);
+            // Timestamps and durations are in microseconds
+            json.name("ts").value((event.startNanos - START_NANOS) / 1000.0);
+            json.name("dur").value(event.durationNanos / 1000.0);
+            if (event.argName != null) {
+                json.name("args").beginObject().name(event.argName).value(event.argValue).endObject();
+            }
+            json.endObject();
+        }
+
+        json.endArray();
+        json.endObject();
+        json.flush();
+    }
+
+    private static void record(Event event) {
+        if (EVENT_COUNT.incrementAndGet() > MAX_EVENTS) {
+            return;
+        }
+
+        EVENTS.add(event);
+        if (EVENT_COUNT.get() == MAX_EVENTS) {
+            HyinitLogger.get()
+                    .warn(String.format(
+                            "Startup trace reached %d events, further events are dropped "
+                                    + "(raise -D%s to record more)",
+                            MAX_EVENTS, MAX_EVENTS_PROPERTY));
+        }
+    }
+
+    public static final class Span implements AutoCloseable {
+
+        private final String category;
+        private final String name;
+        private final String argName;
+        private final String argValue;
+        private final long startNanos;
+
+        private Span(String category, String name, String argName, String argValue, long startNanos) {
+            this.category = category;
+            this.name = name;
+            this.argName = argName;
+            this.argValue = argValue;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void close() {
+            if (this == NOOP) {
+                return;
+            }
+
+            long duration = System.nanoTime() - startNanos;
+            Thread thread = Thread.currentThread();
+            long threadId = thread.threadId();
+            THREAD_NAMES.computeIfAbsent(threadId, id -> thread.getName());
+            record(new Event(category, name, argName, argValue, threadId, startNanos, duration));
+        }
+    }
+
+    private record Event(
+            String category,
+            String name,
+            String argName,
+            String argValue,
+            long threadId,
+            long startNanos,
+            long durationNanos) {}
+}
@@ -3,6 +3,9 @@ package cc.irori.hyinit.util;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -35,6 +38,35 @@ public final class JsonUtil {
         return List.of();
     }
 
+    /**
+     * Streaming counterpart of {@link #readStringOrStringArray(JsonElement)}, consuming the next
+     * value of {@code reader} whatever its type.
+     */
+    public static List<String> readStringOrStringArray(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+
+        if (token == JsonToken.STRING) {
+            return List.of(reader.nextString());
+        }
+
+        if (token == JsonToken.BEGIN_ARRAY) {
+            List<String> out = new ArrayList<>();
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (reader.peek() == JsonToken.STRING) {
+                    out.add(reader.nextString());
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endArray();
+            return out;
+        }
+
+        reader.skipValue();
+        return List.of();
+    }
+
     public static JsonObject getObject(JsonObject root, String key) {
         if (!root.has(key)) return null;
         JsonElement element = root.get(key);
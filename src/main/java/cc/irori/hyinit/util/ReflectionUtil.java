@@ -1,7 +1,14 @@
 package cc.irori.hyinit.util;
 
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandleProxies;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import sun.misc.Unsafe;
 
 public final class ReflectionUtil {
@@ -9,6 +16,8 @@ public final class ReflectionUtil {
     private static final Unsafe UNSAFE =
             (Unsafe) ReflectionUtil.getFieldValueAndSetAccessible(Unsafe.class, "theUnsafe", null);
 
+    private static final Map<AccessorKey, Object> ACCESSORS = new ConcurrentHashMap<>();
+
     public static Class<?> loadClassOrNull(ClassLoader classLoader, String className) {
         try {
             return classLoader.loadClass(className);
@@ -172,4 +181,102 @@ public final class ReflectionUtil {
             throw new UnsupportedOperationException();
         }
     }
+
+    /**
+     * Returns an implementation of {@code functionalInterface} that calls {@code method}, as if it
+     * was written as a method reference. Unlike {@link Method#invoke}, calls through the accessor
+     * need no argument array and no access check, and can be inlined by the JIT. Accessors are
+     * cached, and {@code method} does not need to be accessible.
+     *
+     * <p>Instance methods take the receiver as the first argument of the functional interface.
+     * Use interfaces of the JDK such as {@link java.util.function.BiFunction}, as they are the only
+     * ones visible from every class loader.
+     *
+     * <p>The accessor is spun by {@link LambdaMetafactory} when Hyinit has full access to the
+     * declaring class. Classes of other class loaders live in another unnamed module, for which
+     * that access cannot be had, so {@link MethodHandleProxies} wraps the method handle instead.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T getAccessor(Method method, Class<T> functionalInterface) {
+        return (T) ACCESSORS.computeIfAbsent(
+                new AccessorKey(method, functionalInterface), key -> createAccessor(method, functionalInterface));
+    }
+
+    private static Object createAccessor(Method method, Class<?> functionalInterface) {
+        Method sam = getSingleAbstractMethod(functionalInterface);
+
+        MethodHandles.Lookup lookup;
+        MethodHandle handle;
+        try {
+            lookup = MethodHandles.privateLookupIn(method.getDeclaringClass(), MethodHandles.lookup());
+            handle = lookup.unreflect(method);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException(e);
+        }
+
+        if (lookup.hasFullPrivilegeAccess()) {
+            MethodType samType = MethodType.methodType(sam.getReturnType(), sam.getParameterTypes());
+            try {
+                CallSite site = LambdaMetafactory.metafactory(
+                        lookup,
+                        sam.getName(),
+                        MethodType.methodType(functionalInterface),
+                        samType,
+                        handle,
+                        instantiatedType(handle.type(), samType));
+                return site.getTarget().invoke();
+            } catch (Throwable e) {
+                // Types the metafactory cannot adapt, the proxy converts them like invoke would
+            }
+        }
+
+        return MethodHandleProxies.asInterfaceInstance(functionalInterface, handle);
+    }
+
+    /**
+     * Returns the type of the implementation with primitives boxed where the interface expects
+     * objects, which is what {@link LambdaMetafactory} requires.
+     */
+    private static MethodType instantiatedType(MethodType implType, MethodType samType) {
+        if (implType.parameterCount() != samType.parameterCount()) {
+            throw new IllegalArgumentException(implType + " does not match " + samType);
+        }
+
+        Class<?>[] parameters = new Class<?>[implType.parameterCount()];
+        for (int i = 0; i < parameters.length; i++) {
+            parameters[i] = adapt(implType.parameterType(i), samType.parameterType(i));
+        }
+
+        Class<?> returnType =
+                samType.returnType() == void.class ? void.class : adapt(implType.returnType(), samType.returnType());
+        return MethodType.methodType(returnType, parameters);
+    }
+
+    private static Class<?> adapt(Class<?> implType, Class<?> samType) {
+        return implType.isPrimitive() && !samType.isPrimitive()
+                ? MethodType.methodType(implType).wrap().returnType()
+                : implType;
+    }
+
+    private static Method getSingleAbstractMethod(Class<?> functionalInterface) {
+        if (!functionalInterface.isInterface()) {
+            throw new IllegalArgumentException(functionalInterface + " is not an interface");
+        }
+
+        Method sam = null;
+        for (Method candidate : functionalInterface.getMethods()) {
+            if (Modifier.isAbstract(candidate.getModifiers())) {
+                if (sam != null) {
+                    throw new IllegalArgumentException(functionalInterface + " is not a functional interface");
+                }
+                sam = candidate;
+            }
+        }
+        if (sam == null) {
+            throw new IllegalArgumentException(functionalInterface + " is not a functional interface");
+        }
+        return sam;
+    }
+
+    private record AccessorKey(Method method, Class<?> functionalInterface) {}
 }
@@ -0,0 +1,40 @@
+package cc.irori.hyinit.mixin;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class HyinitClassLoaderTest {
+
+    @Test
+    void ignoresNoTransformPackagesContainingMixinTargets() {
+        HyinitClassLoader classLoader = new HyinitClassLoader();
+        classLoader.setNoTransformPackages(List.of("com.hypixel.", "com.example.shaded."));
+        assertFalse(classLoader.canTransformClass("com.hypixel.hytale.LateMain"));
+
+        classLoader.setMixinTargetIndex(new MixinTargetIndex(
+                Set.of("com.hypixel.hytale.LateMain", "com.example.Target"),
+                List.of("com.example.mixin."),
+                Set.of(),
+                new LinkedHashSet<>(),
+                Object::toString,
+                true));
+
+        assertTrue(classLoader.canTransformClass("com.hypixel.hytale.LateMain"));
+        assertTrue(classLoader.canTransformClass("com.hypixel.hytale.server.Other"));
+        assertFalse(classLoader.canTransformClass("com.example.shaded.Library"));
+    }
+
+    @Test
+    void ignoresNoTransformPackagesCoveringBuiltInExclusions() {
+        HyinitClassLoader classLoader = new HyinitClassLoader();
+        classLoader.setNoTransformPackages(List.of("org.spongepowered.asm.", "com.example.shaded."));
+
+        assertFalse(classLoader.canTransformClass("com.example.shaded.Library"));
+        assertTrue(classLoader.canTransformClass("com.example.Target"));
+    }
+}
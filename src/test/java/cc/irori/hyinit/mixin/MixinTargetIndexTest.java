@@ -0,0 +1,57 @@
+package cc.irori.hyinit.mixin;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class MixinTargetIndexTest {
+
+    private static final String TARGET = "com.example.Target";
+    private static final String OTHER = "com.example.Other";
+
+    @Test
+    void staysCompleteWhileConfigsAreSelected() {
+        // Stands in for Mixin's registered set, which configs leave once they are selected
+        Set<String> registered = new LinkedHashSet<>(List.of("a.mixins.json", "b.mixins.json"));
+        MixinTargetIndex index = index(registered);
+
+        assertTrue(index.isTarget(TARGET));
+        assertFalse(index.isTarget(OTHER));
+
+        registered.remove("a.mixins.json");
+        assertFalse(index.isTarget(OTHER));
+
+        registered.clear();
+        assertFalse(index.isTarget(OTHER));
+        assertTrue(index.isTarget("com.example.mixin.TargetMixin"));
+        assertTrue(index.isComplete());
+    }
+
+    @Test
+    void disablesItselfForUnknownConfig() {
+        Set<String> registered = new LinkedHashSet<>();
+        MixinTargetIndex index = index(registered);
+        assertFalse(index.isTarget(OTHER));
+
+        registered.add("late.mixins.json");
+        assertTrue(index.isTarget(OTHER));
+        assertFalse(index.isComplete());
+
+        registered.clear();
+        assertTrue(index.isTarget(OTHER));
+    }
+
+    static MixinTargetIndex index(Set<String> registered) {
+        return new MixinTargetIndex(
+                Set.of(TARGET),
+                List.of("com.example.mixin."),
+                Set.of("a.mixins.json", "b.mixins.json"),
+                registered,
+                Object::toString,
+                true);
+    }
+}
@@ -0,0 +1,49 @@
+package cc.irori.hyinit.mixin;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TransformCacheTest {
+
+    private static final byte[] ORIGINAL = {1, 2, 3};
+    private static final byte[] TRANSFORMED = {4, 5, 6, 7};
+
+    @TempDir
+    Path root;
+
+    @Test
+    void writesPendingEntriesOnClose() throws IOException {
+        TransformCache cache = TransformCache.open(root, "fingerprint", Long.MAX_VALUE);
+        cache.put("com.example.Target", ORIGINAL, TRANSFORMED);
+        cache.close();
+        assertEquals(1, cache.stats().writes());
+
+        TransformCache reopened = TransformCache.open(root, "fingerprint", Long.MAX_VALUE);
+        assertArrayEquals(TRANSFORMED, reopened.get("com.example.Target", ORIGINAL));
+        reopened.close();
+    }
+
+    @Test
+    void dropsPutsAfterClose() throws IOException {
+        TransformCache cache = TransformCache.open(root, "fingerprint", Long.MAX_VALUE);
+        cache.close();
+
+        // Shutdown hooks run while classes are still being loaded
+        cache.put("com.example.Target", ORIGINAL, TRANSFORMED);
+
+        TransformCache.Stats stats = cache.stats();
+        assertEquals(0, stats.entries());
+        assertEquals(0, stats.sizeBytes());
+        assertNull(cache.get("com.example.Target", ORIGINAL));
+        try (var files = Files.list(root.resolve("fingerprint"))) {
+            assertEquals(0, files.count());
+        }
+    }
+}